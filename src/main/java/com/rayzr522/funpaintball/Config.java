@@ -54,11 +54,112 @@ public class Config extends Configuration {
      */
     public static double WAIT_DEATH         = 10.0;
 
+    /**
+     * The maximum number of players moved out of a death box each tick, per
+     * arena
+     */
+    public static int    RESPAWNS_PER_TICK  = 4;
+
+    /**
+     * The maximum number of players teleported each tick when a match starts
+     * or stops
+     */
+    public static int    TELEPORTS_PER_TICK = 5;
+
+    /**
+     * The maximum number of chunks kept loaded for a single running arena
+     */
+    public static int    MAX_PINNED_CHUNKS  = 256;
+
+    /**
+     * The maximum number of chunks loaded each tick while an arena is starting
+     */
+    public static int    PRELOAD_PER_TICK   = 2;
+
+    /**
+     * The maximum time (in milliseconds) spent on deferred work like saving
+     * each tick
+     */
+    public static double WORK_BUDGET        = 2.0;
+
+    /**
+     * The maximum number of deferred jobs waiting per priority
+     */
+    public static int    WORK_QUEUE_LIMIT   = 1000;
+
+    /**
+     * The maximum time (in milliseconds) the rules of a single match may spend
+     * on their objective each tick
+     */
+    public static double MODE_BUDGET        = 1.0;
+
     /**
      * Length of time (in seconds) to wait for the player's snowballs to reload
      */
     public static double WAIT_RELOAD        = 4.0;
 
+    /**
+     * Length of time (in seconds) a player's place in a match is kept after
+     * they disconnect. Set to 0 to remove them right away.
+     */
+    public static double GRACE_PERIOD       = 30.0;
+
+    /**
+     * The maximum number of disconnected players whose place is kept at once
+     */
+    public static int    GRACE_LIMIT        = 100;
+
+    /**
+     * The maximum number of players in a party
+     */
+    public static int    PARTY_SIZE         = 4;
+
+    /**
+     * The rating new players start with
+     */
+    public static double RATING_START       = 1500.0;
+
+    /**
+     * How much a single match can change a player's rating
+     */
+    public static double RATING_K           = 32.0;
+
+    /**
+     * The width of the rating ranges {@code /fpb play} groups arenas by
+     */
+    public static double RATING_BUCKET      = 100.0;
+
+    /**
+     * How many rating ranges away from their own a player may be matched
+     * before an empty arena is preferred
+     */
+    public static int    RATING_SPREAD      = 2;
+
+    /**
+     * The maximum number of outline particles sent to a player each tick by
+     * {@code /fpb show}
+     */
+    public static int    OUTLINE_PARTICLES  = 64;
+
+    /**
+     * Only region edges within this many blocks of the player are drawn by
+     * {@code /fpb show}
+     */
+    public static double OUTLINE_DISTANCE   = 48.0;
+
+    /**
+     * Length of time (in seconds) that region outlines are shown for by
+     * {@code /fpb show}
+     */
+    public static double OUTLINE_DURATION   = 30.0;
+
+    /**
+     * Length of time (in seconds) that join, leave and point messages are
+     * collected for before they are sent as one message. Set to 0 to send them
+     * right away.
+     */
+    public static double COALESCE_WINDOW    = 0.5;
+
     /**
      * The team name for Blue team
      */
@@ -6,16 +6,28 @@ import java.util.logging.Logger;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import com.rayzr522.funpaintball.cmd.CommandAddVertex;
 import com.rayzr522.funpaintball.cmd.CommandCreateMap;
 import com.rayzr522.funpaintball.cmd.CommandDeleteMap;
 import com.rayzr522.funpaintball.cmd.CommandFPB;
+import com.rayzr522.funpaintball.cmd.CommandFlag;
+import com.rayzr522.funpaintball.cmd.CommandInstances;
 import com.rayzr522.funpaintball.cmd.CommandJoin;
 import com.rayzr522.funpaintball.cmd.CommandLeave;
+import com.rayzr522.funpaintball.cmd.CommandMenu;
+import com.rayzr522.funpaintball.cmd.CommandParty;
+import com.rayzr522.funpaintball.cmd.CommandPlay;
 import com.rayzr522.funpaintball.cmd.CommandSetPoint;
+import com.rayzr522.funpaintball.cmd.CommandSetShape;
 import com.rayzr522.funpaintball.cmd.CommandSetSpawn;
+import com.rayzr522.funpaintball.cmd.CommandShow;
+import com.rayzr522.funpaintball.cmd.CommandStats;
 import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.TeleportService;
 import com.rayzr522.funpaintball.util.Configuration;
 import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.TimingWheel;
+import com.rayzr522.funpaintball.util.WorkQueue;
 
 /**
  * The main class of the FunPaintBall plugin
@@ -47,6 +59,21 @@ public class FunPaintBall extends JavaPlugin {
      */
     private Minigame           mg;
 
+    /**
+     * The scheduler for all delayed and repeating tasks of this plugin
+     */
+    private TimingWheel        scheduler;
+
+    /**
+     * Spreads large groups of teleports over several ticks
+     */
+    private TeleportService    teleports;
+
+    /**
+     * Runs deferrable work under a per-tick time budget
+     */
+    private WorkQueue          work;
+
     @Override
     public void onEnable() {
 
@@ -66,12 +93,20 @@ public class FunPaintBall extends JavaPlugin {
             Bukkit.getPluginManager().disablePlugin(this);
         }
 
+        // Start the scheduler before anything can use it
+        scheduler = new TimingWheel(this, 512);
+        scheduler.start();
+        teleports = new TeleportService(scheduler);
+
         // Initialize the minigame
         mg = new Minigame(this, "FunPaintBall");
 
         // Load all config files
         load();
 
+        // Needs the config to be loaded
+        work = new WorkQueue(scheduler, (long) (Config.WORK_BUDGET * 1_000_000), Config.WORK_QUEUE_LIMIT);
+
         // Register the commands
         registerCommands();
 
@@ -85,6 +120,9 @@ public class FunPaintBall extends JavaPlugin {
 
         // Force stop all matches
         mg.stop();
+        teleports.flush();
+        work.flush();
+        scheduler.stop();
 
         save();
         info(versionText() + " disabled");
@@ -117,6 +155,27 @@ public class FunPaintBall extends JavaPlugin {
 
     }
 
+    /**
+     * @return The scheduler for all delayed and repeating tasks of this plugin
+     */
+    public TimingWheel getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The service used for teleporting groups of players
+     */
+    public TeleportService getTeleports() {
+        return teleports;
+    }
+
+    /**
+     * @return The queue for deferrable work
+     */
+    public WorkQueue getWork() {
+        return work;
+    }
+
     /**
      * Alias of {@link Logger#info(String)}
      * 
@@ -154,10 +213,19 @@ public class FunPaintBall extends JavaPlugin {
         root = new CommandFPB(this);
         root.addChild(new CommandSetSpawn(mg));
         root.addChild(new CommandSetPoint(mg));
+        root.addChild(new CommandSetShape(mg));
+        root.addChild(new CommandAddVertex(mg));
+        root.addChild(new CommandFlag(mg));
+        root.addChild(new CommandShow(mg));
+        root.addChild(new CommandInstances(mg));
         root.addChild(new CommandCreateMap(mg));
         root.addChild(new CommandDeleteMap(mg));
         root.addChild(new CommandJoin(mg));
+        root.addChild(new CommandPlay(mg));
+        root.addChild(new CommandMenu(mg));
+        root.addChild(new CommandParty(mg));
         root.addChild(new CommandLeave(mg));
+        root.addChild(new CommandStats());
 
     }
 
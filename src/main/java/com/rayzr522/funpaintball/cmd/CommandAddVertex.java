@@ -0,0 +1,81 @@
+package com.rayzr522.funpaintball.cmd;
+
+import org.bukkit.Location;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Arena;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Region;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for adding vertices to the outline of a polygon region
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandAddVertex extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandAddVertex(Minigame mg) {
+        super(null, "addvertex");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        if (args.length < 1) {
+            return false;
+        }
+
+        String arenaName = "default";
+        if (args.length > 1) {
+            arenaName = args[1];
+        }
+
+        Arena arena = mg.getArena(arenaName);
+        if (arena == null) {
+            msg("no-such-map", arenaName);
+            return false;
+        }
+
+        Region region = arena.getRegion(args[0]);
+        if (region == null) {
+            msg("valid-regions", "arena, lobby, death, hill");
+            return false;
+        }
+
+        if (!Region.POLYGON.equals(region.getShape())) {
+            msg("not-a-polygon", args[0].toLowerCase());
+            return true;
+        }
+
+        Location loc = player.getLocation();
+        region.addVertex(loc.getBlockX() + 0.5, loc.getBlockZ() + 0.5);
+
+        mg.rebuildIndex();
+
+        msg("vertex-added", region.getVertices().size(), args[0].toLowerCase());
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.admin";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Adds your position to the outline of a polygon region";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.addvertex");
+    }
+
+}
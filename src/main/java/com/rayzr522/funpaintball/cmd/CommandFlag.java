@@ -0,0 +1,93 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Arena;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Region;
+import com.rayzr522.funpaintball.minigame.RegionFlag;
+import com.rayzr522.funpaintball.util.ArrayUtils;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for setting the protection flags of a region
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandFlag extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandFlag(Minigame mg) {
+        super(null, "flag");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        if (args.length < 3) {
+            return false;
+        }
+
+        String arenaName = "default";
+        if (args.length > 3) {
+            arenaName = args[3];
+        }
+
+        Arena arena = mg.getArena(arenaName);
+        if (arena == null) {
+            msg("no-such-map", arenaName);
+            return false;
+        }
+
+        Region region = arena.getRegion(args[0]);
+        if (region == null) {
+            msg("valid-regions", "arena, lobby, death, hill");
+            return false;
+        }
+
+        RegionFlag flag = RegionFlag.get(args[1]);
+        if (flag == null) {
+            msg("valid-flags", ArrayUtils.concat(RegionFlag.values(), ", ").toLowerCase());
+            return false;
+        }
+
+        boolean value;
+        switch (args[2].toLowerCase()) {
+            case "on":
+            case "true":
+                value = true;
+                break;
+            case "off":
+            case "false":
+                value = false;
+                break;
+            default:
+                return false;
+        }
+
+        region.setFlag(flag, value);
+
+        msg("flag-set", flag.name().toLowerCase(), args[0].toLowerCase(), value ? "on" : "off");
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.admin";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Turns a protection flag of one of the regions of an arena on or off";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.flag");
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.rayzr522.funpaintball.cmd;
+
+import org.bukkit.util.Vector;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Arena;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for letting a map host several matches at once
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandInstances extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandInstances(Minigame mg) {
+        super(null, "instances");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        if (args.length < 4) {
+            return false;
+        }
+
+        String arenaName = "default";
+        if (args.length > 4) {
+            arenaName = args[4];
+        }
+
+        Arena arena = mg.getArena(arenaName);
+        if (arena == null) {
+            msg("no-such-map", arenaName);
+            return false;
+        }
+
+        double[] values = new double[4];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = Double.parseDouble(args[i]);
+            } catch (NumberFormatException e) {
+                msg("not-a-number", args[i]);
+                return false;
+            }
+        }
+
+        int max = Math.max(1, (int) values[0]);
+        arena.setMaxInstances(max);
+        arena.setInstanceOffset(max > 1 ? new Vector(values[1], values[2], values[3]) : null);
+
+        msg("instances-set", arenaName, max, values[1], values[2], values[3]);
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.admin";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets how many copies of a map can run at once, and how far apart they are";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.instances");
+    }
+
+}
@@ -35,9 +35,19 @@ public class CommandJoin extends CommandHandler {
             return false;
         }
 
+        User user = new User(player);
+        if (user.getCurrentArena() != null) {
+            msg("already-playing", user.getCurrentArena().getName());
+            return true;
+        }
+
+        // Pick a copy of the map that can be joined right now
+        arena = mg.getJoinable(arena);
+
         msg("joining", args[0]);
-        if (!new User(player).join(arena)) {
+        if (!user.join(arena)) {
             msg("failed-to-join", args[0]);
+            mg.joinFailed(arena);
         }
 
         return true;
@@ -0,0 +1,45 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for opening the arena selector
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandMenu extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandMenu(Minigame mg) {
+        super(null, "menu");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        mg.getMenu().open(player);
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows every map to pick one to join";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.menu");
+    }
+
+}
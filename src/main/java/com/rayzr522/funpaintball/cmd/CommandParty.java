@@ -0,0 +1,75 @@
+package com.rayzr522.funpaintball.cmd;
+
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Party;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for showing your party. The other party commands are children
+ * of this one.
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandParty extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandParty(Minigame mg) {
+        super(null, "party");
+        this.mg = mg;
+        addChild(new CommandPartyInvite(mg));
+        addChild(new CommandPartyAccept(mg));
+        addChild(new CommandPartyLeave(mg));
+        addChild(new CommandPartyPlay(mg));
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        Party party = mg.getParties().getParty(player.getUniqueId());
+        if (party == null) {
+            msg("no-party");
+            return true;
+        }
+
+        StringBuilder members = new StringBuilder();
+        for (UUID id : party.getMembers()) {
+            Player member = Bukkit.getPlayer(id);
+            if (members.length() > 0) {
+                members.append(", ");
+            }
+            members.append(member == null ? id.toString() : member.getName());
+        }
+
+        msg("party-members", party.size(), members.toString());
+        if (party.isQueued()) {
+            msg("party-queued");
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows who is in your party";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.party");
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Party;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for accepting a party invite
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandPartyAccept extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandPartyAccept(Minigame mg) {
+        super(null, "accept");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        Party party = mg.getParties().accept(player);
+        if (party == null) {
+            msg("no-invite");
+            return true;
+        }
+
+        party.broadcast("party-joined", player.getName());
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Accepts your latest party invite";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.party-accept");
+    }
+
+}
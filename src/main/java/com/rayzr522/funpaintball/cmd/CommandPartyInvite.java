@@ -0,0 +1,72 @@
+package com.rayzr522.funpaintball.cmd;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Party;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for inviting a player to your party
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandPartyInvite extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandPartyInvite(Minigame mg) {
+        super(null, "invite");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        if (args.length < 1) {
+            return false;
+        }
+
+        Player target = Bukkit.getPlayer(args[0]);
+        if (target == null || target.equals(player)) {
+            msg("no-such-player", args[0]);
+            return true;
+        }
+
+        Party party = mg.getParties().getOrCreate(player);
+        if (!party.isLeader(player.getUniqueId())) {
+            msg("not-party-leader");
+            return true;
+        }
+
+        if (!mg.getParties().invite(party, target)) {
+            msg("cannot-invite", target.getName());
+            return true;
+        }
+
+        msg("invite-sent", target.getName());
+        Msg.send(target, "invite-received", player.getName());
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Invites a player to your party";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.party-invite");
+    }
+
+}
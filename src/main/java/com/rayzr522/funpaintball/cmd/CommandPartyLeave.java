@@ -0,0 +1,54 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Party;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for leaving your party
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandPartyLeave extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandPartyLeave(Minigame mg) {
+        super(null, "leave");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        Party party = mg.getParties().leave(player.getUniqueId());
+        if (party == null) {
+            msg("no-party");
+            return true;
+        }
+
+        msg("party-left");
+        party.broadcast("party-member-left", player.getName());
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Leaves your party";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.party-leave");
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Party;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for sending your whole party into a match
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandPartyPlay extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandPartyPlay(Minigame mg) {
+        super(null, "play");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        Party party = mg.getParties().getParty(player.getUniqueId());
+        if (party == null) {
+            msg("no-party");
+            return true;
+        }
+        if (!party.isLeader(player.getUniqueId())) {
+            msg("not-party-leader");
+            return true;
+        }
+
+        // Queued parties are told about it by the PartyPlacer
+        mg.play(party);
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Joins a match together with your party";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.party-play");
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Arena;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.User;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for joining whichever arena will start soonest
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandPlay extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandPlay(Minigame mg) {
+        super(null, "play");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        User user = new User(player);
+        if (user.getCurrentArena() != null) {
+            msg("already-playing", user.getCurrentArena().getName());
+            return true;
+        }
+
+        Arena arena = mg.findMatch(user.getRating());
+        if (arena == null) {
+            msg("no-match");
+            return true;
+        }
+
+        msg("joining", arena.getName());
+        if (!user.join(arena)) {
+            msg("failed-to-join", arena.getName());
+            mg.joinFailed(arena);
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.user";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Joins the match that starts soonest";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.play");
+    }
+
+}
@@ -64,11 +64,19 @@ public class CommandSetPoint extends CommandHandler {
             case "death2":
                 arena.getDeathBox().setMax(loc);
                 break;
+            case "hill1":
+                arena.getHill().setMin(loc);
+                break;
+            case "hill2":
+                arena.getHill().setMax(loc);
+                break;
             default:
-                msg("valid-points", "arena1, arena2, lobby1, lobby2, death1, death2");
+                msg("valid-points", "arena1, arena2, lobby1, lobby2, death1, death2, hill1, hill2");
                 return false;
         }
 
+        mg.rebuildIndex();
+
         msg("point-set", point);
 
         return true;
@@ -0,0 +1,83 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Arena;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Region;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for setting the shape of a region
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandSetShape extends CommandHandler {
+
+    private Minigame mg;
+
+    public CommandSetShape(Minigame mg) {
+        super(null, "setshape");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        if (args.length < 2) {
+            return false;
+        }
+
+        String arenaName = "default";
+        if (args.length > 2) {
+            arenaName = args[2];
+        }
+
+        Arena arena = mg.getArena(arenaName);
+        if (arena == null) {
+            msg("no-such-map", arenaName);
+            return false;
+        }
+
+        Region region = arena.getRegion(args[0]);
+        if (region == null) {
+            msg("valid-regions", "arena, lobby, death, hill");
+            return false;
+        }
+
+        String shape = args[1].toLowerCase();
+
+        if (!region.setShape(shape)) {
+            msg("valid-shapes", Region.CUBOID + ", " + Region.CYLINDER + ", " + Region.POLYGON);
+            return false;
+        }
+
+        if (shape.equals(Region.POLYGON)) {
+            // Start a fresh outline, see CommandAddVertex
+            region.clearVertices();
+        }
+
+        mg.rebuildIndex();
+
+        msg("shape-set", args[0].toLowerCase(), shape);
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.admin";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the shape of one of the regions of an arena";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.setshape");
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.rayzr522.funpaintball.cmd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.minigame.Arena;
+import com.rayzr522.funpaintball.minigame.Minigame;
+import com.rayzr522.funpaintball.minigame.Region;
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * The command for showing the outlines of the regions of an arena
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandShow extends CommandHandler {
+
+    private static final double[] ARENA_COLOR = { 0.001, 1.0, 0.001 };
+    private static final double[] LOBBY_COLOR = { 0.001, 0.4, 1.0 };
+    private static final double[] DEATH_COLOR = { 1.0, 0.001, 0.001 };
+    private static final double[] HILL_COLOR  = { 1.0, 0.8, 0.001 };
+
+    private Minigame              mg;
+
+    public CommandShow(Minigame mg) {
+        super(null, "show");
+        this.mg = mg;
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        if (args.length < 1) {
+            if (mg.getOutlineRenderer().hide(player)) {
+                msg("outline-hidden");
+                return true;
+            }
+            return false;
+        }
+
+        String type = args[0].toLowerCase();
+
+        String arenaName = "default";
+        if (args.length > 1) {
+            arenaName = args[1];
+        }
+
+        Arena arena = mg.getArena(arenaName);
+        if (arena == null) {
+            msg("no-such-map", arenaName);
+            return false;
+        }
+
+        List<Region> regions = new ArrayList<>();
+        List<double[]> colors = new ArrayList<>();
+
+        if (type.equals("arena") || type.equals("all")) {
+            regions.add(arena.getArenaRegion());
+            colors.add(ARENA_COLOR);
+        }
+        if (type.equals("lobby") || type.equals("all")) {
+            regions.add(arena.getLobbyRegion());
+            colors.add(LOBBY_COLOR);
+        }
+        if (type.equals("death") || type.equals("all")) {
+            regions.add(arena.getDeathBox());
+            colors.add(DEATH_COLOR);
+        }
+        if (type.equals("hill") || type.equals("all")) {
+            regions.add(arena.getHill());
+            colors.add(HILL_COLOR);
+        }
+
+        if (regions.isEmpty()) {
+            msg("valid-regions", "all, arena, lobby, death, hill");
+            return false;
+        }
+
+        mg.getOutlineRenderer().show(player, regions, colors);
+        msg("outline-shown", type, arena.getName());
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.admin";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows the outlines of the regions of an arena";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.show");
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.rayzr522.funpaintball.cmd;
+
+import com.rayzr522.funpaintball.CommandHandler;
+import com.rayzr522.funpaintball.FunPaintBall;
+import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.WorkQueue;
+
+/**
+ * The command for showing how the deferred work queue is keeping up
+ * 
+ * @author Rayzr
+ *
+ */
+public class CommandStats extends CommandHandler {
+
+    public CommandStats() {
+        super(null, "stats");
+    }
+
+    @Override
+    public boolean commandExecuted(String[] args) {
+
+        WorkQueue work = FunPaintBall.INSTANCE.getWork();
+        msg("work-stats", work.size(), work.getExecuted(), work.getDeferred(), work.getDropped());
+
+        return true;
+
+    }
+
+    @Override
+    public String getPermission() {
+        return "fpb.admin";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows how much queued work is waiting, done and dropped";
+    }
+
+    @Override
+    public String getUsage() {
+        return Msg.get("usage.stats");
+    }
+
+}
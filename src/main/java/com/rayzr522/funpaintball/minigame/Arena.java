@@ -1,18 +1,25 @@
 
 package com.rayzr522.funpaintball.minigame;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Sound;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
 
 import com.rayzr522.funpaintball.Config;
 import com.rayzr522.funpaintball.FunPaintBall;
 import com.rayzr522.funpaintball.config.ISerializable;
 import com.rayzr522.funpaintball.config.Serialized;
+import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.Reflection;
+import com.rayzr522.funpaintball.util.TimingWheel;
 
 public class Arena implements ISerializable {
 
@@ -64,10 +71,52 @@ public class Arena implements ISerializable {
     @Serialized
     protected Location           exit;
 
-    protected List<User>         users       = new ArrayList<>();
+    /**
+     * How far apart the copies of this arena are built, see {@link ArenaPool}.
+     * If this is {@code null} the arena can only host one match at a time.
+     */
+    @Serialized
+    protected Vector             instanceOffset;
+    @Serialized
+    protected int                maxInstances = 1;
+
+    /**
+     * The rules of the match, see {@link MatchMode#create(String)}
+     */
+    @Serialized
+    protected String             mode         = TeamDeathmatchMode.NAME;
+    /**
+     * The score which ends the match, or 0 for no limit
+     */
+    @Serialized
+    protected int                scoreLimit   = 0;
+    /**
+     * Length of time (in seconds) after which the match ends, or 0 for no
+     * limit
+     */
+    @Serialized
+    protected double             timeLimit    = 0;
+    /**
+     * The region to hold in {@link KingOfTheHillMode}
+     */
+    @Serialized
+    protected Region             hill         = new Region();
+
+    protected Roster             users       = new Roster();
 
     protected boolean            valid;
 
+    /**
+     * The minigame this arena belongs to
+     */
+    private Minigame             minigame;
+
+    /**
+     * The arena this is a copy of, or {@code null} if this is a template
+     */
+    private Arena                template;
+    private int                  instanceId;
+
     /**
      * The current game state
      * 
@@ -78,15 +127,66 @@ public class Arena implements ISerializable {
     private int                  state       = 0;
 
     /**
-     * All runnables that have been started with
-     * {@link Arena#later(BukkitRunnable, double)}. Used for stopping all active
-     * runnables when a match stops.
+     * The rules for {@link Arena#mode}, made when first needed
+     */
+    private MatchMode            rules;
+
+    /**
+     * The player whose hit is being handled, see
+     * {@link Arena#hit(User, User)}
      */
-    private List<BukkitRunnable> runnables   = new ArrayList<>();
+    private User                 killer;
 
     /**
-     * Used for choosing which team a person is on when the game starts.
-     * Alternates each time someone joins.
+     * The players who are still waiting for their start or exit teleport, and
+     * so may be anywhere in the arena. See
+     * {@link Arena#getBoundary(UUID, World, int, int, int)}.
+     */
+    private Set<UUID>            inTransit   = new HashSet<>();
+
+    /**
+     * How many ticks the last start and stop teleports took, or -1 if there
+     * haven't been any yet
+     */
+    private int                  startTicks  = -1;
+    private int                  stopTicks   = -1;
+
+    /**
+     * The scope of all tasks that have been started with
+     * {@link Arena#later(Runnable, double)}. Used for stopping all active tasks
+     * when the state changes.
+     */
+    private TimingWheel.Scope    scope       = new TimingWheel.Scope();
+
+    /**
+     * Players waiting in the death box, see {@link Arena#sendToDeathBox(User)}
+     */
+    private RespawnQueue         respawns    = new RespawnQueue();
+
+    /**
+     * The task draining {@link Arena#respawns}, or {@code null}
+     */
+    private TimingWheel.Task     respawnTask;
+
+    /**
+     * The countdowns shown in the action bars of the players
+     */
+    private HudTicker            hud         = new HudTicker(users);
+
+    /**
+     * The task ticking {@link Arena#hud}, or {@code null}
+     */
+    private TimingWheel.Task     hudTask;
+
+    /**
+     * Merges bursts of join, leave and point messages, see
+     * {@link Arena#announce(String, Object...)}
+     */
+    private BroadcastCoalescer   coalescer   = new BroadcastCoalescer(this::sendAll);
+
+    /**
+     * Used for choosing which team a person is on when both teams are the
+     * same size. Alternates each time that happens.
      */
     private boolean              blueTeam    = false;
 
@@ -99,6 +199,18 @@ public class Arena implements ISerializable {
      */
     private int                  scoreBlue   = 0;
 
+    /**
+     * The time the current state ends at, or -1, see
+     * {@link ArenaStatus#getSecondsLeft()}
+     */
+    private long                 stateEnd    = -1;
+
+    /**
+     * The latest status, replaced whenever it changes so other threads can
+     * read it
+     */
+    private volatile ArenaStatus status;
+
     public Arena() {
         this("default");
     }
@@ -118,6 +230,7 @@ public class Arena implements ISerializable {
         this.name = name;
         this.minPlayers = minPlayers;
         this.maxPlayers = maxPlayers;
+        publish();
 
     }
 
@@ -141,13 +254,132 @@ public class Arena implements ISerializable {
     }
 
     /**
-     * Adds a user to the arena
+     * Makes a copy of this arena with all regions and spawns moved by
+     * {@link Arena#instanceOffset} times the given number. The exit stays
+     * where it is.
+     * 
+     * @param id
+     *            the number of the instance, starting at 1
+     * @return The copy
+     * 
+     * @see ArenaPool
+     */
+    public Arena createInstance(int id) {
+
+        Vector offset = instanceOffset.clone().multiply(id);
+
+        Arena copy = new Arena(name + "-" + id, minPlayers, maxPlayers);
+        copy.arenaRegion = arenaRegion.translate(offset);
+        copy.lobbyRegion = lobbyRegion.translate(offset);
+        copy.deathBox = deathBox.translate(offset);
+        copy.arenaBlueSpawn = translate(arenaBlueSpawn, offset);
+        copy.arenaRedSpawn = translate(arenaRedSpawn, offset);
+        copy.lobbySpawn = translate(lobbySpawn, offset);
+        copy.deathBoxSpawn = translate(deathBoxSpawn, offset);
+        copy.exit = exit;
+        copy.mode = mode;
+        copy.scoreLimit = scoreLimit;
+        copy.timeLimit = timeLimit;
+        copy.hill = hill.translate(offset);
+
+        copy.minigame = minigame;
+        copy.template = this;
+        copy.instanceId = id;
+        return copy;
+
+    }
+
+    private static Location translate(Location location, Vector offset) {
+        return location == null ? null : location.clone().add(offset);
+    }
+
+    /**
+     * @return Whether or not a player joining now would be able to play the
+     *         next match
+     */
+    public boolean isJoinable() {
+        return state != RUNNING && users.size() < maxPlayers && isValid();
+    }
+
+    /**
+     * @return The average rating of the players in this arena, or
+     *         {@link Double#NaN} if it is empty
+     * 
+     * @see RatingBatch
+     */
+    public double getAverageRating() {
+        if (users.isEmpty()) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (User u : users) {
+            sum += u.getRating();
+        }
+        return sum / users.size();
+    }
+
+    /**
+     * Lets the {@link Matchmaker} know this arena has changed
+     */
+    private void changed() {
+        publish();
+        if (minigame != null) {
+            minigame.onArenaChanged(this);
+        }
+    }
+
+    /**
+     * Publishes a new {@link ArenaStatus}. Must be called on the main thread
+     * whenever anything in it changes.
+     */
+    private void publish() {
+        status = new ArenaStatus(this, stateEnd);
+        if (minigame != null) {
+            minigame.onStatusChanged(this);
+        }
+    }
+
+    /**
+     * Get the status of this arena. Unlike everything else in this class, this
+     * is safe to call from any thread.
+     * 
+     * @return The latest status
+     */
+    public ArenaStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Lets the pool remove this instance once nobody is using it
+     */
+    void checkIdle() {
+        if (template != null && state == WAITING && users.isEmpty() && minigame != null) {
+            minigame.releaseInstance(this);
+        }
+    }
+
+    /**
+     * Adds a user to the arena, on whichever team has fewer players
      * 
      * @param user
      *            the player
      * @return Whether or not they were allowed to join
      */
     public final boolean join(User user) {
+        return join(user, -1);
+    }
+
+    /**
+     * Adds a user to the arena
+     * 
+     * @param user
+     *            the player
+     * @param team
+     *            the team to put them on, or -1 to pick one
+     * @return Whether or not they were allowed to join. Will return false if
+     *         the arena or the given team is full.
+     */
+    public final boolean join(User user, int team) {
 
         if (!isValid()) {
             return false;
@@ -159,12 +391,55 @@ public class Arena implements ISerializable {
             return false;
         }
 
-        users.add(user);
+        if (team < 0) {
+            if (users.size(BLUE_TEAM) == users.size(RED_TEAM)) {
+                blueTeam = !blueTeam;
+                team = blueTeam ? BLUE_TEAM : RED_TEAM;
+            } else {
+                team = users.size(BLUE_TEAM) < users.size(RED_TEAM) ? BLUE_TEAM : RED_TEAM;
+            }
+        }
+        if (getFreeSlots(team) <= 0) {
+            return false;
+        }
+
+        users.add(user, team);
+        user.setTeam(team);
         onJoin(user);
+        changed();
         return true;
 
     }
 
+    /**
+     * Get how many more players can join a team
+     * 
+     * @param team
+     *            the team
+     * @return The number of free slots. Each team can have at most half of
+     *         {@link Arena#maxPlayers} (rounded up).
+     */
+    public int getFreeSlots(int team) {
+        int perTeam = (maxPlayers + 1) / 2;
+        return Math.max(0, Math.min(perTeam - users.size(team), maxPlayers - users.size()));
+    }
+
+    /**
+     * @param team
+     *            the team
+     * @return The number of players on that team
+     */
+    public int getTeamSize(int team) {
+        return users.size(team);
+    }
+
+    /**
+     * @return The number of players in this arena
+     */
+    public int getPlayerCount() {
+        return users.size();
+    }
+
     /**
      * Removes a user from the arena
      * 
@@ -173,38 +448,148 @@ public class Arena implements ISerializable {
      */
     public void leave(User user) {
 
-        if (users.remove(user)) {
+        if (users.contains(user)) {
+            if (state == RUNNING) {
+                getRules().onLeave(this, user);
+            }
+            // The countdown is stored by slot, so it goes first
+            hud.remove(user);
+            users.remove(user);
+            inTransit.remove(user.getId());
             user.teleport(exit);
             user.setTeam(-1);
             user.restoreData();
+            changed();
+            checkIdle();
+        }
+
+    }
+
+    /**
+     * Called when a player in this arena disconnected, but their place is
+     * being held for them
+     * 
+     * @param user
+     *            the player
+     * 
+     * @see GraceSessions#hold(User)
+     */
+    public void disconnect(User user) {
+        if (state == RUNNING) {
+            getRules().onLeave(this, user);
         }
+        hud.remove(user);
+        announce("player-disconnected", user.getName(), (int) Config.GRACE_PERIOD);
+    }
 
+    /**
+     * Called when a player reconnected in time to get their place back
+     * 
+     * @param user
+     *            the player, already updated with their new {@link Player}
+     * 
+     * @see GraceSessions#reclaim(Player)
+     */
+    public void reconnect(User user) {
+        user.setCurrentRegion(null);
+        user.teleport(state == RUNNING ? getSpawn(user.getTeam()) : lobbySpawn);
+        announce("player-reconnected", user.getName());
+    }
+
+    /**
+     * Removes a player who didn't reconnect in time. Since they are offline,
+     * their stored data is restored and saved to their player file, and they
+     * are sent to the exit the next time they join.
+     * 
+     * @param user
+     *            the player
+     */
+    public void drop(User user) {
+
+        if (!users.contains(user)) {
+            return;
+        }
+
+        if (state == RUNNING) {
+            getRules().onLeave(this, user);
+        }
+        hud.remove(user);
+        users.remove(user);
+        exitOffline(user);
+
+        announce("player-timed-out", user.getName());
+        changed();
+        checkIdle();
+
+    }
+
+    /**
+     * Restores the data of a player who is offline and saves it to their
+     * player file, and sends them to the exit the next time they join
+     * 
+     * @param user
+     *            the player, already removed from the roster
+     */
+    private void exitOffline(User user) {
+        user.setTeam(-1);
+        user.restoreData();
+        user.getPlayer().saveData();
+        user.setPendingExit(exit);
+    }
+
+    /**
+     * Get a player in this arena
+     * 
+     * @param id
+     *            the UUID of the player
+     * @return The player, or {@code null} if they aren't in this arena
+     */
+    public User getUser(UUID id) {
+        return users.get(id);
     }
 
     public void switchState(int state) {
-        // int oldState = this.state;
+        int oldState = this.state;
         this.state = state;
+        if (state == STARTING) {
+            stateEnd = System.currentTimeMillis() + (long) (Config.WAIT_START * 1000);
+        } else if (state == RUNNING && timeLimit > 0) {
+            stateEnd = System.currentTimeMillis() + (long) (timeLimit * 1000);
+        } else {
+            stateEnd = -1;
+        }
+        changed();
 
-        for (BukkitRunnable runnable : runnables) {
-            try {
-                runnable.cancel();
-            } catch (IllegalStateException e) {
+        // Anything collected belongs to the old state
+        coalescer.flush();
 
-            } catch (Exception e) {
-                System.err.println("Failed to stop runnable!");
-                e.printStackTrace();
-            }
+        // The allowed regions depend on the state, see Arena#getBoundary
+        for (User u : users) {
+            u.setCurrentRegion(null);
         }
 
+        scope.cancelAll();
+        respawns.clear();
+        respawnTask = null;
+        hud.clear();
+        hudTask = null;
+
         if (state == WAITING) {
-            stop();
+            minigame.getResidency().release(this);
+            if (oldState == RUNNING) {
+                stop();
+            }
+            checkIdle();
         } else if (state == STARTING) {
 
+            // Load the arena during the countdown, and keep it loaded
+            minigame.getResidency().pin(this);
+
             for (int i = 1; i <= 5; i++) {
 
                 final int time = i;
 
-                later(new BukkitRunnable() {
+                later(new Runnable() {
 
                     public void run() {
                         broadcast("starting-in", time);
@@ -213,7 +598,7 @@ public class Arena implements ISerializable {
 
             }
 
-            later(new BukkitRunnable() {
+            later(new Runnable() {
 
                 @Override
                 public void run() {
@@ -247,10 +632,19 @@ public class Arena implements ISerializable {
 
     }
 
+    /**
+     * Sends everyone back right away. Unlike {@link Arena#stop()} this doesn't
+     * spread the teleports over several ticks, since it is used when the
+     * plugin is disabled.
+     */
     public void forceStop() {
 
         for (User u : users) {
 
+            if (!u.getPlayer().isOnline()) {
+                continue;
+            }
+
             u.teleport(exit);
             u.restoreData();
 
@@ -258,41 +652,107 @@ public class Arena implements ISerializable {
 
     }
 
+    /**
+     * Ends the match if it is running
+     */
+    public void end() {
+        if (state == RUNNING) {
+            switchState(WAITING);
+        }
+    }
+
     protected void onStart() {
 
+        scoreBlue = 0;
+        scoreRed = 0;
+        publish();
+
+        getRules().onStart(this);
+        FunPaintBall.INSTANCE.getScheduler().every(scope, this::tickRules, 1L, 1L);
+        if (timeLimit > 0) {
+            later(this::end, timeLimit);
+        }
+
+        TeleportService.Batch batch = new TeleportService.Batch();
         for (User u : users) {
 
-            u.teleport(getSpawn(u.getTeam()));
+            batch.add(u, getSpawn(u.getTeam()));
+            inTransit.add(u.getId());
 
         }
+        batch.after(u -> {
+            inTransit.remove(u.getId());
+            // Their cached region is still the lobby
+            u.setCurrentRegion(null);
+        });
+        batch.skipped(u -> inTransit.remove(u.getId()));
+        batch.done(ticks -> {
+            startTicks = ticks;
+            if (Msg.DEBUG) {
+                System.out.println("Moved " + batch.size() + " players into arena '" + name + "' over " + ticks + " ticks");
+            }
+        });
+        FunPaintBall.INSTANCE.getTeleports().submit(batch);
 
         broadcast("match-started");
 
     }
 
+    private void tickRules() {
+        long deadline = System.nanoTime() + (long) (Config.MODE_BUDGET * 1000000);
+        getRules().tick(this, deadline);
+    }
+
     protected void onStop() {
 
-        int winningTeam = scoreBlue == scoreRed ? -1 : (scoreBlue > scoreRed ? BLUE_TEAM : RED_TEAM);
+        int winningTeam = getRules().onStop(this);
 
-        switch (winningTeam) {
-            case BLUE_TEAM:
-                broadcast("team-won", Config.TEAM_BLUE, scoreBlue, scoreRed);
-                break;
-            case RED_TEAM:
-                broadcast("team-won", Config.TEAM_RED, scoreRed, scoreBlue);
-                break;
-            case -1:
-                broadcast("tie", scoreBlue, scoreRed);
-                break;
+        if (getRules().isTeamBased()) {
+            // Ratings are worked out off the main thread, then saved when the
+            // server isn't busy
+            new RatingBatch(users.toList(), winningTeam).submit(FunPaintBall.INSTANCE, minigame::requestSave);
         }
 
-        for (User u : users) {
+        // Everyone is sent out. Players in a grace session have nothing to
+        // come back to, so they are sent out the next time they join.
+        TeleportService.Batch batch = new TeleportService.Batch();
+        for (User u : users.toList()) {
+
+            if (!u.getPlayer().isOnline()) {
+                users.remove(u);
+                minigame.getGrace().forget(u);
+                exitOffline(u);
+                u.setCurrentArena(null);
+                continue;
+            }
 
-            u.teleport(exit);
-            u.getPlayer().playSound(u.getLocation(), Sound.ENTITY_FIREWORK_BLAST, 1.0f, 1.0f);
-            u.getPlayer().playSound(u.getLocation(), Sound.ENTITY_BLAZE_SHOOT, 1.0f, 1.0f);
+            // They keep their place in the arena until they are moved
+            users.remove(u);
+            u.setTeam(-1);
+            inTransit.add(u.getId());
+            batch.add(u, exit);
 
         }
+        changed();
+        batch.after(u -> {
+            inTransit.remove(u.getId());
+            u.restoreData();
+            u.setCurrentArena(null);
+            u.getPlayer().playSound(u.getLocation(), Sound.ENTITY_FIREWORK_BLAST, 1.0f, 1.0f);
+            u.getPlayer().playSound(u.getLocation(), Sound.ENTITY_BLAZE_SHOOT, 1.0f, 1.0f);
+        });
+        batch.skipped(u -> {
+            inTransit.remove(u.getId());
+            exitOffline(u);
+            u.setCurrentArena(null);
+        });
+        batch.done(ticks -> {
+            stopTicks = ticks;
+            if (Msg.DEBUG) {
+                System.out.println("Moved " + batch.size() + " players out of arena '" + name + "' over " + ticks + " ticks");
+            }
+        });
+        FunPaintBall.INSTANCE.getTeleports().submit(batch);
 
     }
 
@@ -304,10 +764,7 @@ public class Arena implements ISerializable {
      */
     protected void onJoin(User user) {
 
-        broadcast("player-joined", user.getName(), users.size(), maxPlayers);
-
-        blueTeam = !blueTeam;
-        user.setTeam(blueTeam ? BLUE_TEAM : RED_TEAM);
+        announce("player-joined", user.getName(), users.size(), maxPlayers);
 
         user.storeData();
         user.getPlayer().getInventory().clear();
@@ -327,16 +784,97 @@ public class Arena implements ISerializable {
      *            the user
      */
     public void onDeath(User user) {
+
+        User killer = this.killer;
+        this.killer = null;
+
         sendToDeathBox(user);
-        switch (user.getTeam()) {
-            case BLUE_TEAM:
-                scoreRed++;
-                anouncePoint(RED_TEAM);
-                break;
-            case RED_TEAM:
-                scoreBlue++;
-                anouncePoint(BLUE_TEAM);
-                break;
+        if (state == RUNNING) {
+            getRules().onDeath(this, user, killer);
+        }
+
+    }
+
+    /**
+     * Called when a player in this arena is hit by a snowball. Kills them if
+     * the rules allow it.
+     * 
+     * @param user
+     *            the player who was hit
+     * @param shooter
+     *            the player who threw the snowball
+     * @return Whether or not they were killed
+     */
+    public boolean hit(User user, User shooter) {
+
+        if (user.getCurrentArena() != this) {
+            return false;
+        }
+        if (getRules().isTeamBased() && user.getTeam() == shooter.getTeam()) {
+            return false;
+        }
+
+        // The death event is fired right away, see Arena#onDeath(User)
+        killer = shooter;
+        try {
+            user.getPlayer().setHealth(0);
+        } finally {
+            killer = null;
+        }
+        return true;
+
+    }
+
+    /**
+     * Called when a player in this arena moves into a different block
+     * 
+     * @param id
+     *            the UUID of the player
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     */
+    public void onMove(UUID id, World world, int x, int y, int z) {
+        if (state != RUNNING) {
+            return;
+        }
+        User user = users.get(id);
+        if (user != null) {
+            getRules().onMove(this, user, world, x, y, z);
+        }
+    }
+
+    /**
+     * Adds to the score of a team
+     * 
+     * @param team
+     *            the team
+     * @param points
+     *            the number of points to add
+     * @return The new score of the team
+     * 
+     * @see Arena#checkScoreLimit(int)
+     */
+    public int addScore(int team, int points) {
+        int score = team == BLUE_TEAM ? (scoreBlue += points) : (scoreRed += points);
+        publish();
+        return score;
+    }
+
+    /**
+     * Ends the match if a score has reached {@link Arena#scoreLimit}
+     * 
+     * @param score
+     *            the score of a team or player
+     */
+    public void checkScoreLimit(int score) {
+        if (scoreLimit > 0 && score >= scoreLimit) {
+            end();
         }
     }
 
@@ -349,10 +887,10 @@ public class Arena implements ISerializable {
     public void anouncePoint(int team) {
         switch (team) {
             case BLUE_TEAM:
-                broadcast("point-scored", Config.TEAM_BLUE, scoreBlue, scoreRed);
+                announce("point-scored", Config.TEAM_BLUE, scoreBlue, scoreRed);
                 break;
             case RED_TEAM:
-                broadcast("point-scored", Config.TEAM_RED, scoreBlue, scoreRed);
+                announce("point-scored", Config.TEAM_RED, scoreBlue, scoreRed);
                 break;
         }
     }
@@ -366,28 +904,162 @@ public class Arena implements ISerializable {
      *            the values to insert into the message
      */
     public void broadcast(String msg, Object... objects) {
-        for (User u : users) {
-            u.send(msg, objects);
+        coalescer.flush();
+        sendAll(msg, objects);
+    }
+
+    /**
+     * Broadcast a message which happens in bursts, like players joining. If
+     * there is a {@code coalesce.<msg>} message, everything announced within
+     * {@link Config#COALESCE_WINDOW} seconds is sent as one message, otherwise
+     * this is the same as {@link Arena#broadcast(String, Object...)}.
+     * 
+     * @param msg
+     *            the key of the message to send
+     * @param objects
+     *            the values to insert into the message
+     * 
+     * @see BroadcastCoalescer
+     */
+    public void announce(String msg, Object... objects) {
+        if (!coalescer.add(msg, objects)) {
+            broadcast(msg, objects);
+        }
+    }
+
+    private void sendAll(String msg, Object... objects) {
+        Object[] message = render(msg, objects);
+        for (int team = 0; team < Roster.TEAMS; team++) {
+            send(team, message);
+        }
+    }
+
+    /**
+     * Broadcast a message to all players on one team
+     * 
+     * @param team
+     *            the team
+     * @param msg
+     *            the key of the message to send
+     * @param objects
+     *            the values to insert into the message
+     */
+    public void broadcast(int team, String msg, Object... objects) {
+        coalescer.flush();
+        send(team, render(msg, objects));
+    }
+
+    /**
+     * Formats a message once for all players it is sent to. If the chat
+     * packet is available, one packet is built per line and the same packets
+     * are sent to everyone, otherwise the lines themselves are returned.
+     */
+    private static Object[] render(String msg, Object... objects) {
+
+        String[] lines = Msg.lines(msg, objects);
+
+        Object[] packets = new Object[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            packets[i] = Reflection.createChatPacket(lines[i], (byte) 0);
+            if (packets[i] == null) {
+                return lines;
+            }
         }
+        return packets;
+
+    }
+
+    private void send(int team, Object[] message) {
+
+        for (int i = 0; i < users.size(team); i++) {
+
+            Player player = users.get(team, i).getPlayer();
+            // Players in a grace session are still on the roster
+            if (!player.isOnline()) {
+                continue;
+            }
+
+            if (message instanceof String[]) {
+                player.sendMessage((String[]) message);
+            } else {
+                for (Object packet : message) {
+                    Reflection.sendPacket(packet, player);
+                }
+            }
+
+        }
+
     }
 
     /**
      * Sends a {@link User} to the death box for {@link Config#WAIT_DEATH}
-     * seconds
+     * seconds. Respawns are handled by a single queue per arena, which moves at
+     * most {@link Config#RESPAWNS_PER_TICK} players back each tick.
      * 
      * @param user
      *            the player
      */
     public void sendToDeathBox(User user) {
+
         user.teleport(deathBoxSpawn);
-        later(new BukkitRunnable() {
 
-            @Override
-            public void run() {
+        TimingWheel scheduler = FunPaintBall.INSTANCE.getScheduler();
+        respawns.add(user, scheduler.getTick() + (long) (Config.WAIT_DEATH * 20));
+
+        if (respawnTask == null) {
+            respawnTask = scheduler.every(scope, this::drainRespawns, 1L, 1L);
+        }
+
+    }
+
+    private void drainRespawns() {
+
+        respawns.drain(FunPaintBall.INSTANCE.getScheduler().getTick(), Config.RESPAWNS_PER_TICK, user -> {
+            // They might have left while in the death box
+            if (user.getCurrentArena() == this && user.getPlayer().isOnline()) {
                 user.teleport(getSpawn(user.getTeam()));
             }
+        });
+
+        if (respawns.isEmpty()) {
+            respawnTask.cancel();
+            respawnTask = null;
+        }
+
+    }
+
+    /**
+     * Shows a countdown in the action bar of a player. The countdown is
+     * cancelled if the state of the arena changes.
+     * 
+     * @param user
+     *            the player
+     * @param key
+     *            the key of the message to show. The number of seconds left is
+     *            passed as <code>{0}</code>.
+     * @param seconds
+     *            the length of the countdown
+     */
+    public void countdown(User user, String key, double seconds) {
+
+        TimingWheel scheduler = FunPaintBall.INSTANCE.getScheduler();
+        hud.start(user, key, scheduler.getTick() + (long) (seconds * 20));
+
+        if (hudTask == null) {
+            hudTask = scheduler.every(scope, this::tickHud, 1L, 1L);
+        }
+
+    }
+
+    private void tickHud() {
+
+        hud.tick(FunPaintBall.INSTANCE.getScheduler().getTick());
+
+        if (hud.isEmpty()) {
+            hudTask.cancel();
+            hudTask = null;
+        }
 
-        }, Config.WAIT_DEATH);
     }
 
     /**
@@ -414,6 +1086,7 @@ public class Arena implements ISerializable {
      */
     public void setName(String name) {
         this.name = name;
+        publish();
     }
 
     /**
@@ -429,6 +1102,7 @@ public class Arena implements ISerializable {
      */
     public void setMinPlayers(int minPlayers) {
         this.minPlayers = minPlayers;
+        publish();
     }
 
     /**
@@ -444,6 +1118,7 @@ public class Arena implements ISerializable {
      */
     public void setMaxPlayers(int maxPlayers) {
         this.maxPlayers = maxPlayers;
+        publish();
     }
 
     /**
@@ -476,6 +1151,81 @@ public class Arena implements ISerializable {
         this.lobbyRegion = lobbyRegion;
     }
 
+    /**
+     * Get one of the regions of this arena by its type
+     * 
+     * @param type
+     *            the type of the region, one of {@code arena}, {@code lobby}
+     *            or {@code death}
+     * @return The region, or {@code null} if the type is not valid
+     */
+    public Region getRegion(String type) {
+        switch (type.toLowerCase()) {
+            case "arena":
+                return arenaRegion;
+            case "lobby":
+                return lobbyRegion;
+            case "death":
+                return deathBox;
+            case "hill":
+                return hill;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the region a player in this arena is allowed to be in at the given
+     * block. While a match is running this is either the arena or the death
+     * box, otherwise it is the lobby.
+     * 
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return The region containing the block, or {@code null} if players are
+     *         not allowed to be there
+     */
+    public Region getBoundary(World world, int x, int y, int z) {
+        return getBoundary(null, world, x, y, z);
+    }
+
+    /**
+     * Same as {@link Arena#getBoundary(World, int, int, int)}, except that a
+     * player whose start or exit teleport hasn't happened yet may be in any
+     * region of the arena
+     * 
+     * @param id
+     *            the UUID of the player
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return The region containing the block, or {@code null} if the player
+     *         is not allowed to be there
+     */
+    public Region getBoundary(UUID id, World world, int x, int y, int z) {
+        if (id != null && inTransit.contains(id)) {
+            if (lobbyRegion.contains(world, x, y, z)) {
+                return lobbyRegion;
+            }
+        } else if (state != RUNNING) {
+            return lobbyRegion.contains(world, x, y, z) ? lobbyRegion : null;
+        }
+        if (arenaRegion.contains(world, x, y, z)) {
+            return arenaRegion;
+        }
+        return deathBox.contains(world, x, y, z) ? deathBox : null;
+    }
+
     /**
      * Check whether this Arena is currently valid (has all required data like
      * regions, spawns, etc.)
@@ -485,7 +1235,8 @@ public class Arena implements ISerializable {
     public boolean isValid() {
         return valid = !(arenaRegion == null || lobbyRegion == null || deathBox == null || arenaBlueSpawn == null || arenaRedSpawn == null || lobbySpawn == null || deathBoxSpawn == null
                 || exit == null) && arenaRegion.isValid()
-                && lobbyRegion.isValid() && deathBox.isValid();
+                && lobbyRegion.isValid() && deathBox.isValid()
+                && (!KingOfTheHillMode.NAME.equalsIgnoreCase(mode) || hill != null && hill.isValid());
     }
 
     /**
@@ -588,18 +1339,17 @@ public class Arena implements ISerializable {
     }
 
     /**
-     * @return the users
+     * @return A copy of the players in this arena
      */
     public List<User> getUsers() {
-        return users;
+        return users.toList();
     }
 
     /**
-     * @param users
-     *            the users to set
+     * @return the roster
      */
-    public void setUsers(List<User> users) {
-        this.users = users;
+    public Roster getRoster() {
+        return users;
     }
 
     /**
@@ -615,18 +1365,195 @@ public class Arena implements ISerializable {
      */
     public void setState(int state) {
         this.state = state;
+        publish();
+    }
+
+    /**
+     * @return the minigame
+     */
+    public Minigame getMinigame() {
+        return minigame;
+    }
+
+    /**
+     * @param minigame
+     *            the minigame to set
+     */
+    void setMinigame(Minigame minigame) {
+        this.minigame = minigame;
+        // The fields were loaded after the constructor ran
+        publish();
+    }
+
+    /**
+     * @return the scoreBlue
+     */
+    public int getScoreBlue() {
+        return scoreBlue;
+    }
+
+    /**
+     * @return the scoreRed
+     */
+    public int getScoreRed() {
+        return scoreRed;
+    }
+
+    /**
+     * @return How many ticks it took to move everyone into the arena the last
+     *         time a match started, or -1 if none has started yet
+     */
+    public int getStartTicks() {
+        return startTicks;
+    }
+
+    /**
+     * @return How many ticks it took to move everyone out of the arena the
+     *         last time a match ended, or -1 if none has ended yet
+     */
+    public int getStopTicks() {
+        return stopTicks;
+    }
+
+    /**
+     * @return the instanceOffset
+     */
+    public Vector getInstanceOffset() {
+        return instanceOffset;
+    }
+
+    /**
+     * @param instanceOffset
+     *            the instanceOffset to set
+     */
+    public void setInstanceOffset(Vector instanceOffset) {
+        this.instanceOffset = instanceOffset;
+    }
+
+    /**
+     * @return the maxInstances
+     */
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
+    /**
+     * @param maxInstances
+     *            the maxInstances to set
+     */
+    public void setMaxInstances(int maxInstances) {
+        this.maxInstances = maxInstances;
+    }
+
+    /**
+     * Get the rules of this arena. If {@link Arena#mode} is not a known mode,
+     * team deathmatch is used.
+     * 
+     * @return The rules
+     */
+    public MatchMode getRules() {
+
+        if (rules != null && rules.getName().equalsIgnoreCase(mode)) {
+            return rules;
+        }
+
+        rules = MatchMode.create(mode);
+        if (rules == null) {
+            System.err.println("Unknown mode '" + mode + "' for arena '" + name + "', using '" + TeamDeathmatchMode.NAME + "' instead");
+            rules = new TeamDeathmatchMode();
+            mode = rules.getName();
+        }
+        return rules;
+
+    }
+
+    /**
+     * @return the mode
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @param mode
+     *            the mode to set
+     */
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return the scoreLimit
+     */
+    public int getScoreLimit() {
+        return scoreLimit;
+    }
+
+    /**
+     * @param scoreLimit
+     *            the scoreLimit to set
+     */
+    public void setScoreLimit(int scoreLimit) {
+        this.scoreLimit = scoreLimit;
+    }
+
+    /**
+     * @return the timeLimit
+     */
+    public double getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * @param timeLimit
+     *            the timeLimit to set
+     */
+    public void setTimeLimit(double timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * @return the hill
+     */
+    public Region getHill() {
+        return hill;
+    }
+
+    /**
+     * @param hill
+     *            the hill to set
+     */
+    public void setHill(Region hill) {
+        this.hill = hill;
+    }
+
+    /**
+     * @return The arena this is a copy of, or {@code null} if this is not a
+     *         copy
+     */
+    public Arena getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return The number of this copy, or 0 if this is not a copy
+     */
+    public int getInstanceId() {
+        return instanceId;
     }
 
     /**
+     * Runs a task after a delay. The task is cancelled if the state of the
+     * arena changes before then.
      * 
      * @param runnable
-     *            the {@link BukkitRunnable} to run
+     *            the task to run
      * @param seconds
      *            how many seconds until this runs
+     * @return A handle to the task
      */
-    public void later(BukkitRunnable runnable, double seconds) {
-        runnable.runTaskLater(FunPaintBall.INSTANCE, (long) (seconds * 20));
-        runnables.add(runnable);
+    public TimingWheel.Task later(Runnable runnable, double seconds) {
+        return FunPaintBall.INSTANCE.getScheduler().later(scope, runnable, (long) (seconds * 20));
     }
 
     /**
@@ -0,0 +1,294 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * A spatial index of all arena {@link Region}s. Regions are bucketed per world
+ * by the chunks they overlap, so a lookup for a location far away from any
+ * arena is a single hash probe instead of a scan over every arena.<br>
+ * <br>
+ * The index is a snapshot; it must be rebuilt with
+ * {@link ArenaIndex#rebuild(Collection)} whenever a region is changed.
+ * 
+ * @author Rayzr
+ * 
+ * @see Minigame#rebuildIndex()
+ * 
+ */
+public class ArenaIndex {
+
+    private static final Region[]           NONE   = new Region[0];
+
+    private Map<World, Map<Long, Region[]>> worlds = new HashMap<>();
+
+    /**
+     * Packs chunk coordinates into a single key
+     * 
+     * @param chunkX
+     *            the chunk X coordinate
+     * @param chunkZ
+     *            the chunk Z coordinate
+     * @return The packed key
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Rebuilds the index from the regions of the given arenas. Invalid
+     * (unfinished) regions are skipped.
+     * 
+     * @param arenas
+     *            the arenas to index
+     */
+    public void rebuild(Collection<Arena> arenas) {
+
+        Map<World, Map<Long, List<Region>>> building = new HashMap<>();
+
+        for (Arena arena : arenas) {
+            add(building, arena.getArenaRegion());
+            add(building, arena.getLobbyRegion());
+            add(building, arena.getDeathBox());
+        }
+
+        Map<World, Map<Long, Region[]>> rebuilt = new HashMap<>();
+
+        for (Entry<World, Map<Long, List<Region>>> world : building.entrySet()) {
+
+            Map<Long, Region[]> chunks = new HashMap<>();
+            for (Entry<Long, List<Region>> chunk : world.getValue().entrySet()) {
+                chunks.put(chunk.getKey(), chunk.getValue().toArray(NONE));
+            }
+            rebuilt.put(world.getKey(), chunks);
+
+        }
+
+        worlds = rebuilt;
+
+    }
+
+    private void add(Map<World, Map<Long, List<Region>>> building, Region region) {
+
+        if (region == null || !region.isValid()) {
+            return;
+        }
+
+        Map<Long, List<Region>> chunks = building.get(region.getWorld());
+        if (chunks == null) {
+            chunks = new HashMap<>();
+            building.put(region.getWorld(), chunks);
+        }
+
+        int minX = region.getBlockMinX() >> 4;
+        int minZ = region.getBlockMinZ() >> 4;
+        int maxX = region.getBlockMaxX() >> 4;
+        int maxZ = region.getBlockMaxZ() >> 4;
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                if (!region.intersectsChunk(x, z)) {
+                    continue;
+                }
+                long key = chunkKey(x, z);
+                List<Region> regions = chunks.get(key);
+                if (regions == null) {
+                    regions = new ArrayList<>(1);
+                    chunks.put(key, regions);
+                }
+                regions.add(region);
+            }
+        }
+
+    }
+
+    /**
+     * Get all regions which overlap the given chunk
+     * 
+     * @param world
+     *            the world
+     * @param chunkX
+     *            the chunk X coordinate
+     * @param chunkZ
+     *            the chunk Z coordinate
+     * @return The regions overlapping that chunk. This is never {@code null},
+     *         and must not be modified.
+     */
+    public Region[] getCandidates(World world, int chunkX, int chunkZ) {
+
+        Map<Long, Region[]> chunks = worlds.get(world);
+        if (chunks == null) {
+            return NONE;
+        }
+
+        Region[] regions = chunks.get(chunkKey(chunkX, chunkZ));
+        return regions == null ? NONE : regions;
+
+    }
+
+    /**
+     * Check whether a location is within any indexed region
+     * 
+     * @param location
+     *            the location to check
+     * @return Whether or not the location is within any region
+     */
+    public boolean isInArena(Location location) {
+
+        Region[] regions = getCandidates(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        for (Region region : regions) {
+            if (region.inRegion(location)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+    /**
+     * Check whether a block is within any indexed region. Unlike
+     * {@link ArenaIndex#isInArena(Location)} this does not need a
+     * {@link Location}, so nothing is allocated.
+     * 
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return Whether or not the block is within any region
+     */
+    public boolean isInArena(World world, int x, int y, int z) {
+
+        Region[] regions = getCandidates(world, x >> 4, z >> 4);
+        for (Region region : regions) {
+            if (region.contains(world, x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+    /**
+     * Get the combined {@link RegionFlag}s of every indexed region containing
+     * the given block
+     * 
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return The flags as a bitmask, {@code 0} if the block isn't in any
+     *         region
+     * 
+     * @see RegionFlag#mask()
+     */
+    public int getFlags(World world, int x, int y, int z) {
+
+        Region[] regions = getCandidates(world, x >> 4, z >> 4);
+        int flags = 0;
+        for (Region region : regions) {
+            if (region.contains(world, x, y, z)) {
+                flags |= region.getFlags();
+            }
+        }
+        return flags;
+
+    }
+
+    /**
+     * Removes every block that is within an indexed region from the given
+     * list. The chunk keys of the blocks are sorted first, so each chunk is
+     * looked up in the index only once however its blocks are ordered in the
+     * list, and chunks without any regions are skipped without testing their
+     * blocks. This is meant for
+     * explosion block lists, which are always in one world.
+     * 
+     * @param blocks
+     *            the blocks to filter. This list is modified.
+     * @return The number of blocks that were removed
+     */
+    public int removeProtected(List<Block> blocks) {
+
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+
+        World world = blocks.get(0).getWorld();
+        Map<Long, Region[]> chunks = worlds.get(world);
+        if (chunks == null) {
+            return 0;
+        }
+
+        int size = blocks.size();
+
+        // Explosion lists come out of a hash set, so chunks are interleaved.
+        // Sorting the chunk keys groups them, so each chunk is looked up once.
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            Block block = blocks.get(i);
+            keys[i] = chunkKey(block.getX() >> 4, block.getZ() >> 4);
+        }
+        long[] unique = keys.clone();
+        Arrays.sort(unique);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || unique[i] != unique[i - 1]) {
+                unique[count++] = unique[i];
+            }
+        }
+        Region[][] found = new Region[count][];
+        for (int i = 0; i < count; i++) {
+            found[i] = chunks.getOrDefault(unique[i], NONE);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+
+            Block block = blocks.get(i);
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+
+            Region[] regions = found[Arrays.binarySearch(unique, 0, count, keys[i])];
+
+            boolean inside = false;
+            for (Region region : regions) {
+                if (region.contains(world, x, y, z)) {
+                    inside = true;
+                    break;
+                }
+            }
+
+            if (!inside) {
+                if (kept != i) {
+                    blocks.set(kept, block);
+                }
+                kept++;
+            }
+
+        }
+
+        if (kept < size) {
+            blocks.subList(kept, size).clear();
+        }
+        return size - kept;
+
+    }
+
+}
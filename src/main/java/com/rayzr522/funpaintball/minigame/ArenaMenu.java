@@ -0,0 +1,211 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * The arena selector opened by {@code /fpb menu}. Every viewer looks at the
+ * same inventory, with one icon per arena. An icon is only rebuilt when the
+ * {@link ArenaStatus} of its arena changes, and then only that slot is set, so
+ * every viewer sees the change without the menu being rebuilt. While nobody
+ * has the menu open, changes are only remembered until it is opened again.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#getStatus()
+ * 
+ */
+public class ArenaMenu implements InventoryHolder {
+
+    /**
+     * The most arenas a menu can show (a double chest)
+     */
+    public static final int MAX_SIZE = 54;
+
+    private TimingWheel         scheduler;
+
+    private Inventory           inventory;
+    private List<Arena>         arenas   = new ArrayList<>();
+    private Map<Arena, Integer> slots    = new HashMap<>();
+
+    private Set<Arena>          dirty    = new LinkedHashSet<>();
+    private boolean             layoutChanged;
+    private TimingWheel.Scope   scope    = new TimingWheel.Scope();
+    private TimingWheel.Task    task;
+
+    public ArenaMenu(TimingWheel scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets which arenas are shown. Called whenever an arena is added or
+     * removed.
+     * 
+     * @param arenas
+     *            the arenas, in the order they are shown
+     */
+    public void setArenas(List<Arena> arenas) {
+
+        this.arenas = new ArrayList<>(arenas.subList(0, Math.min(arenas.size(), MAX_SIZE)));
+        slots.clear();
+        for (int i = 0; i < this.arenas.size(); i++) {
+            slots.put(this.arenas.get(i), i);
+        }
+
+        dirty.clear();
+        layoutChanged = true;
+        schedule();
+
+    }
+
+    /**
+     * Called whenever an arena publishes a new status
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void changed(Arena arena) {
+        if (slots.containsKey(arena) && dirty.add(arena)) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (task == null && inventory != null && !inventory.getViewers().isEmpty()) {
+            task = scheduler.later(scope, this::flush, 1L);
+        }
+    }
+
+    private void flush() {
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        if (layoutChanged) {
+            rebuild();
+            return;
+        }
+
+        Iterator<Arena> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            Arena arena = iterator.next();
+            iterator.remove();
+            inventory.setItem(slots.get(arena), createIcon(arena.getStatus()));
+        }
+
+    }
+
+    /**
+     * Makes a new inventory with every icon, and moves everyone viewing the
+     * old one over
+     */
+    private void rebuild() {
+
+        Inventory old = inventory;
+
+        int size = Math.max(9, (arenas.size() + 8) / 9 * 9);
+        inventory = Bukkit.createInventory(this, size, Msg.get("menu.title"));
+        for (int i = 0; i < arenas.size(); i++) {
+            inventory.setItem(i, createIcon(arenas.get(i).getStatus()));
+        }
+        dirty.clear();
+        layoutChanged = false;
+
+        if (old != null) {
+            for (HumanEntity viewer : new ArrayList<>(old.getViewers())) {
+                viewer.openInventory(inventory);
+            }
+        }
+
+    }
+
+    /**
+     * Opens the menu for a player
+     * 
+     * @param player
+     *            the player
+     */
+    public void open(Player player) {
+
+        if (inventory == null || layoutChanged) {
+            rebuild();
+        } else if (!dirty.isEmpty()) {
+            // Catch up on changes made while nobody was looking
+            flush();
+        }
+
+        player.openInventory(inventory);
+
+    }
+
+    /**
+     * @param slot
+     *            a slot of the menu
+     * @return The arena in that slot, or {@code null} if there is none
+     */
+    public Arena getArena(int slot) {
+        return slot >= 0 && slot < arenas.size() ? arenas.get(slot) : null;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * @param status
+     *            the status of an arena
+     * @return The icon of that arena. The color shows the state, and the
+     *         number of items is the number of players.
+     */
+    public static ItemStack createIcon(ArenaStatus status) {
+
+        String state;
+        short color;
+        switch (status.getState()) {
+            case Arena.STARTING:
+                state = Msg.get("menu.starting");
+                color = 4;
+                break;
+            case Arena.RUNNING:
+                state = Msg.get("menu.running");
+                color = 14;
+                break;
+            default:
+                state = Msg.get("menu.waiting");
+                color = 5;
+                break;
+        }
+
+        Object[] objects = { status.getName(), state, status.getPlayers(), status.getMaxPlayers(), status.getScoreBlue(), status.getScoreRed() };
+
+        ItemStack icon = new ItemStack(Material.STAINED_CLAY, Math.max(1, status.getPlayers()), color);
+        ItemMeta meta = icon.getItemMeta();
+        meta.setDisplayName(Msg.get("menu.name", objects));
+        meta.setLore(Arrays.asList(Msg.lines("menu.lore", objects)));
+        icon.setItemMeta(meta);
+        return icon;
+
+    }
+
+}
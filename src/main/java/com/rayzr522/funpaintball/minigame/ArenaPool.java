@@ -0,0 +1,121 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The running copies of one arena. The arena loaded from the config is the
+ * template and always runs as instance 0. When every instance is full or
+ * already playing, a new one is made by moving the template's regions and
+ * spawns by {@link Arena#getInstanceOffset()} times the instance number, up to
+ * {@link Arena#getMaxInstances()}. Instances are removed again once they are
+ * empty and waiting.<br>
+ * <br>
+ * Only the regions and spawns are copied; the map itself has to be built at
+ * every offset beforehand.
+ * 
+ * @author Rayzr
+ * 
+ * @see Minigame#getJoinable(Arena)
+ * 
+ */
+public class ArenaPool {
+
+    private Arena   template;
+    private Arena[] instances;
+
+    public ArenaPool(Arena template) {
+        this.template = template;
+        this.instances = new Arena[] { template };
+    }
+
+    /**
+     * Finds an instance that can be joined right now, making a new one if
+     * there is room for it
+     * 
+     * @return The instance, or {@code null} if every instance is busy and the
+     *         pool can't grow
+     */
+    public Arena getJoinable() {
+
+        for (Arena instance : instances) {
+            if (instance != null && instance.isJoinable()) {
+                return instance;
+            }
+        }
+
+        return grow();
+
+    }
+
+    /**
+     * Starts a new instance, if there is room for one
+     * 
+     * @return The new instance, or {@code null} if the pool is already as big
+     *         as it can get
+     */
+    public Arena grow() {
+
+        if (template.getInstanceOffset() == null || !template.isValid()) {
+            return null;
+        }
+
+        int max = Math.max(1, template.getMaxInstances());
+        if (instances.length < max) {
+            Arena[] grown = new Arena[max];
+            System.arraycopy(instances, 0, grown, 0, instances.length);
+            instances = grown;
+        }
+
+        // Reuse the lowest free offset, so copies stay close together
+        for (int i = 1; i < max; i++) {
+            if (instances[i] == null) {
+                instances[i] = template.createInstance(i);
+                return instances[i];
+            }
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Removes an instance from this pool. The template is never removed.
+     * 
+     * @param instance
+     *            the instance
+     * @return Whether or not it was removed
+     */
+    public boolean remove(Arena instance) {
+
+        int id = instance.getInstanceId();
+        if (id <= 0 || id >= instances.length || instances[id] != instance) {
+            return false;
+        }
+
+        instances[id] = null;
+        return true;
+
+    }
+
+    /**
+     * @return The template and all instances which are currently running
+     */
+    public List<Arena> getInstances() {
+        List<Arena> list = new ArrayList<>(instances.length);
+        for (Arena instance : instances) {
+            if (instance != null) {
+                list.add(instance);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the template
+     */
+    public Arena getTemplate() {
+        return template;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.rayzr522.funpaintball.minigame;
+
+/**
+ * A copy of the status of an arena at one point in time. Arenas publish a new
+ * one whenever something shown here changes, so this can be read from any
+ * thread (async chat, server list pings, etc.) without touching the arena
+ * itself.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#getStatus()
+ * @see Minigame#getStatuses()
+ * 
+ */
+public final class ArenaStatus {
+
+    private final String name;
+    private final int    state;
+    private final int    scoreBlue;
+    private final int    scoreRed;
+    private final int    blue;
+    private final int    red;
+    private final int    minPlayers;
+    private final int    maxPlayers;
+    private final long   end;
+
+    /**
+     * @param arena
+     *            the arena to copy the status of. Must be called on the main
+     *            thread.
+     * @param end
+     *            the time (see {@link System#currentTimeMillis()}) the current
+     *            state ends at, or -1 if it doesn't end on its own
+     */
+    ArenaStatus(Arena arena, long end) {
+        name = arena.getName();
+        state = arena.getState();
+        scoreBlue = arena.getScoreBlue();
+        scoreRed = arena.getScoreRed();
+        blue = arena.getTeamSize(Arena.BLUE_TEAM);
+        red = arena.getTeamSize(Arena.RED_TEAM);
+        minPlayers = arena.getMinPlayers();
+        maxPlayers = arena.getMaxPlayers();
+        this.end = end;
+    }
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the state
+     * 
+     * @see Arena#WAITING
+     * @see Arena#STARTING
+     * @see Arena#RUNNING
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * @return the scoreBlue
+     */
+    public int getScoreBlue() {
+        return scoreBlue;
+    }
+
+    /**
+     * @return the scoreRed
+     */
+    public int getScoreRed() {
+        return scoreRed;
+    }
+
+    /**
+     * @param team
+     *            the team
+     * @return The number of players on that team
+     */
+    public int getTeamSize(int team) {
+        return team == Arena.BLUE_TEAM ? blue : red;
+    }
+
+    /**
+     * @return The number of players
+     */
+    public int getPlayers() {
+        return blue + red;
+    }
+
+    /**
+     * @return the minPlayers
+     */
+    public int getMinPlayers() {
+        return minPlayers;
+    }
+
+    /**
+     * @return the maxPlayers
+     */
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * @return The number of seconds until the current state ends (e.g. until
+     *         the match starts), or -1 if it doesn't end on its own
+     */
+    public int getSecondsLeft() {
+        if (end < 0) {
+            return -1;
+        }
+        return (int) Math.max(0, (end - System.currentTimeMillis() + 999) / 1000);
+    }
+
+}
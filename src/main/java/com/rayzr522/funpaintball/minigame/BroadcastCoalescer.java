@@ -0,0 +1,132 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.FunPaintBall;
+import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * Collects broadcasts of an arena which happen in bursts, like players joining
+ * or points being scored, for {@link Config#COALESCE_WINDOW} seconds and then
+ * sends them as one message.<br>
+ * <br>
+ * A message is only collected if there is a <code>coalesce.&lt;key&gt;</code>
+ * message in messages.yml. If only one event was collected, the normal message
+ * is sent. Otherwise the <code>coalesce.&lt;key&gt;</code> message is sent
+ * with <code>{0}</code> as the number of events, <code>{1}</code> as the
+ * different values of the first placeholder joined by commas, and
+ * <code>{2}</code> and up as the other placeholders of the last event.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#announce(String, Object...)
+ * 
+ */
+public class BroadcastCoalescer {
+
+    /**
+     * The prefix of the keys of merged messages
+     */
+    public static final String PREFIX = "coalesce.";
+
+    private static class Group {
+
+        private final String key;
+        private int          count;
+        private Set<String>  firsts = new LinkedHashSet<>();
+        private Object[]     last;
+
+        private Group(String key) {
+            this.key = key;
+        }
+
+    }
+
+    private BiConsumer<String, Object[]> sink;
+
+    private Map<String, Group>           groups = new LinkedHashMap<>();
+    private TimingWheel.Scope            scope  = new TimingWheel.Scope();
+    private TimingWheel.Task             task;
+
+    /**
+     * @param sink
+     *            sends a message to everyone right away
+     */
+    public BroadcastCoalescer(BiConsumer<String, Object[]> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Collects a message if it can be merged
+     * 
+     * @param key
+     *            the key of the message
+     * @param objects
+     *            the values to insert into the message
+     * @return Whether or not the message was collected. If not, it should be
+     *         sent right away.
+     */
+    public boolean add(String key, Object... objects) {
+
+        if (Config.COALESCE_WINDOW <= 0 || !Msg.has(PREFIX + key)) {
+            return false;
+        }
+
+        Group group = groups.computeIfAbsent(key, Group::new);
+        group.count++;
+        if (objects.length > 0) {
+            group.firsts.add(String.valueOf(objects[0]));
+        }
+        group.last = objects;
+
+        if (task == null) {
+            long delay = Math.max(1L, (long) (Config.COALESCE_WINDOW * 20));
+            task = FunPaintBall.INSTANCE.getScheduler().later(scope, this::flush, delay);
+        }
+        return true;
+
+    }
+
+    /**
+     * Sends everything collected so far. This is called before any message
+     * which isn't collected, so messages are never sent out of order.
+     */
+    public void flush() {
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        List<Group> pending = new ArrayList<>(groups.values());
+        groups.clear();
+
+        for (Group group : pending) {
+
+            if (group.count == 1) {
+                sink.accept(group.key, group.last);
+                continue;
+            }
+
+            Object[] merged = new Object[Math.max(2, group.last.length + 1)];
+            merged[0] = group.count;
+            merged[1] = String.join(", ", group.firsts);
+            System.arraycopy(group.last, 1, merged, 2, Math.max(0, group.last.length - 1));
+            sink.accept(PREFIX + group.key, merged);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * Keeps the chunks of running arenas loaded. When an arena starts its
+ * countdown the chunks around its spawns and its regions are loaded a few at a
+ * time, and from then on they are pinned so the server can't unload them until
+ * the arena goes back to waiting. Chunks shared by several arenas are counted,
+ * so releasing one arena doesn't unpin chunks another one still needs.
+ * 
+ * @author Rayzr
+ * 
+ * @see ChunkResidency#pin(Arena)
+ * @see ChunkResidency#release(Arena)
+ * 
+ */
+public class ChunkResidency {
+
+    private static class Pin {
+
+        private World[]          worlds;
+        private long[]           keys;
+        private int              size;
+
+        // How far preloading got
+        private int              loaded;
+        private TimingWheel.Task task;
+
+    }
+
+    private TimingWheel                    scheduler;
+    private Map<Arena, Pin>                pins   = new HashMap<>();
+    private Map<World, Map<Long, Integer>> pinned = new HashMap<>();
+
+    public ChunkResidency(TimingWheel scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Pins the chunks of an arena and starts loading them, at most
+     * {@link Config#PRELOAD_PER_TICK} per tick. The chunks of the spawns
+     * come first, then the arena region and the death box. No more than
+     * {@link Config#MAX_PINNED_CHUNKS} chunks are pinned for a single arena.
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void pin(Arena arena) {
+
+        release(arena);
+
+        Pin pin = new Pin();
+        pin.worlds = new World[Config.MAX_PINNED_CHUNKS];
+        pin.keys = new long[Config.MAX_PINNED_CHUNKS];
+
+        add(pin, arena.getArenaBlueSpawn());
+        add(pin, arena.getArenaRedSpawn());
+        add(pin, arena.getDeathBoxSpawn());
+        add(pin, arena.getArenaRegion());
+        add(pin, arena.getDeathBox());
+
+        if (pin.size == 0) {
+            return;
+        }
+
+        for (int i = 0; i < pin.size; i++) {
+            Map<Long, Integer> counts = pinned.computeIfAbsent(pin.worlds[i], w -> new HashMap<>());
+            counts.merge(pin.keys[i], 1, Integer::sum);
+        }
+
+        pins.put(arena, pin);
+        pin.task = scheduler.every(null, () -> preload(pin), 1L, 1L);
+
+    }
+
+    /**
+     * Unpins the chunks of an arena, so the server may unload them again
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void release(Arena arena) {
+
+        Pin pin = pins.remove(arena);
+        if (pin == null) {
+            return;
+        }
+
+        if (pin.task != null) {
+            pin.task.cancel();
+        }
+
+        for (int i = 0; i < pin.size; i++) {
+            Map<Long, Integer> counts = pinned.get(pin.worlds[i]);
+            if (counts.merge(pin.keys[i], -1, Integer::sum) <= 0) {
+                counts.remove(pin.keys[i]);
+                if (counts.isEmpty()) {
+                    pinned.remove(pin.worlds[i]);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * @param chunk
+     *            the chunk
+     * @return Whether or not the chunk is pinned by any arena
+     */
+    public boolean isPinned(Chunk chunk) {
+        Map<Long, Integer> counts = pinned.get(chunk.getWorld());
+        return counts != null && counts.containsKey(ArenaIndex.chunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    /**
+     * @return The total number of pinned chunks
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Long, Integer> counts : pinned.values()) {
+            size += counts.size();
+        }
+        return size;
+    }
+
+    private void preload(Pin pin) {
+
+        int budget = Config.PRELOAD_PER_TICK;
+        while (pin.loaded < pin.size && budget > 0) {
+
+            World world = pin.worlds[pin.loaded];
+            long key = pin.keys[pin.loaded++];
+            int x = (int) (key >> 32);
+            int z = (int) key;
+
+            if (!world.isChunkLoaded(x, z)) {
+                world.loadChunk(x, z);
+                budget--;
+            }
+
+        }
+
+        if (pin.loaded >= pin.size) {
+            pin.task.cancel();
+            pin.task = null;
+        }
+
+    }
+
+    private void add(Pin pin, Location location) {
+        if (location != null && location.getWorld() != null) {
+            add(pin, location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        }
+    }
+
+    private void add(Pin pin, Region region) {
+
+        if (region == null || !region.isValid()) {
+            return;
+        }
+
+        int minX = region.getBlockMinX() >> 4;
+        int minZ = region.getBlockMinZ() >> 4;
+        int maxX = region.getBlockMaxX() >> 4;
+        int maxZ = region.getBlockMaxZ() >> 4;
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                if (region.intersectsChunk(x, z)) {
+                    add(pin, region.getWorld(), x, z);
+                }
+            }
+        }
+
+    }
+
+    private void add(Pin pin, World world, int x, int z) {
+
+        if (pin.size >= pin.keys.length) {
+            return;
+        }
+
+        long key = ArenaIndex.chunkKey(x, z);
+        for (int i = 0; i < pin.size; i++) {
+            if (pin.keys[i] == key && pin.worlds[i] == world) {
+                return;
+            }
+        }
+
+        pin.worlds[pin.size] = world;
+        pin.keys[pin.size++] = key;
+
+    }
+
+}
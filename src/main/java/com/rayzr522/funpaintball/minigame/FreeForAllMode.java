@@ -0,0 +1,84 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.World;
+
+/**
+ * Free-for-all. Everyone can hit everyone, and every hit is a point for the
+ * player who made it. The score limit applies to the points of a single
+ * player.
+ * 
+ * @author Rayzr
+ * 
+ */
+public class FreeForAllMode implements MatchMode {
+
+    public static final String NAME = "ffa";
+
+    private Map<UUID, Integer> points = new HashMap<>();
+
+    // Kept up to date on every hit, so the winner is known without a scan
+    private String             leader;
+    private int                leaderPoints;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isTeamBased() {
+        return false;
+    }
+
+    @Override
+    public void onStart(Arena arena) {
+        points.clear();
+        leader = null;
+        leaderPoints = 0;
+    }
+
+    @Override
+    public void tick(Arena arena, long deadline) {
+    }
+
+    @Override
+    public void onDeath(Arena arena, User user, User killer) {
+
+        if (killer == null || killer.equals(user)) {
+            return;
+        }
+
+        int score = points.merge(killer.getId(), 1, Integer::sum);
+        if (score > leaderPoints) {
+            leader = killer.getName();
+            leaderPoints = score;
+        }
+
+        arena.announce("player-scored", killer.getName(), user.getName(), score);
+        arena.checkScoreLimit(score);
+
+    }
+
+    @Override
+    public void onMove(Arena arena, User user, World world, int x, int y, int z) {
+    }
+
+    @Override
+    public void onLeave(Arena arena, User user) {
+    }
+
+    @Override
+    public int onStop(Arena arena) {
+        if (leader == null) {
+            arena.broadcast("no-winner");
+        } else {
+            arena.broadcast("player-won", leader, leaderPoints);
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * Holds the place of players who disconnected from a match for
+ * {@link Config#GRACE_PERIOD} seconds. They stay on their team and keep their
+ * stored {@link PlayerData}, so if they reconnect in time they are put straight
+ * back into the match.<br>
+ * <br>
+ * Sessions are kept in the order they were started in, which is also the
+ * order they expire in, so a single task only ever has to look at the oldest
+ * one. At most {@link Config#GRACE_LIMIT} sessions are held at once; when full,
+ * the oldest one expires early.
+ * 
+ * @author Rayzr
+ * 
+ * @see GraceSessions#hold(User)
+ * @see GraceSessions#reclaim(Player)
+ * 
+ */
+public class GraceSessions {
+
+    private static class Session {
+
+        private final User  user;
+        private final Arena arena;
+        private final long  deadline;
+
+        private Session(User user, Arena arena, long deadline) {
+            this.user = user;
+            this.arena = arena;
+            this.deadline = deadline;
+        }
+
+    }
+
+    private TimingWheel                  scheduler;
+    private LinkedHashMap<UUID, Session> sessions = new LinkedHashMap<>();
+    private TimingWheel.Task             task;
+
+    public GraceSessions(TimingWheel scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Keeps the place of a player who is disconnecting
+     * 
+     * @param user
+     *            the player
+     * @return Whether or not their place is being held. Will return false if
+     *         they aren't in an arena or if grace sessions are disabled.
+     */
+    public boolean hold(User user) {
+
+        Arena arena = user.getCurrentArena();
+        if (arena == null || Config.GRACE_PERIOD <= 0 || Config.GRACE_LIMIT <= 0) {
+            return false;
+        }
+
+        // Use the instance the arena knows about
+        User member = arena.getUser(user.getId());
+        if (member == null) {
+            return false;
+        }
+
+        while (sessions.size() >= Config.GRACE_LIMIT) {
+            Iterator<Session> iterator = sessions.values().iterator();
+            Session oldest = iterator.next();
+            iterator.remove();
+            expire(oldest);
+        }
+
+        long deadline = scheduler.getTick() + (long) (Config.GRACE_PERIOD * 20);
+        sessions.put(member.getId(), new Session(member, arena, deadline));
+        arena.disconnect(member);
+
+        if (task == null) {
+            task = scheduler.every(null, this::tick, 1L, 1L);
+        }
+        return true;
+
+    }
+
+    /**
+     * Puts a player who reconnected back into their match
+     * 
+     * @param player
+     *            the player
+     * @return Whether or not they had a session
+     */
+    public boolean reclaim(Player player) {
+
+        Session session = sessions.remove(player.getUniqueId());
+        if (session == null) {
+            return false;
+        }
+
+        session.user.setPlayer(player);
+        session.arena.reconnect(session.user);
+        return true;
+
+    }
+
+    /**
+     * Ends the session of a player without dropping them from their arena,
+     * for when the arena has already sent them out
+     * 
+     * @param user
+     *            the player
+     */
+    public void forget(User user) {
+        sessions.remove(user.getId());
+    }
+
+    /**
+     * Ends every session right away. Used when the plugin is being disabled.
+     */
+    public void expireAll() {
+
+        while (!sessions.isEmpty()) {
+            Iterator<Session> iterator = sessions.values().iterator();
+            Session session = iterator.next();
+            iterator.remove();
+            expire(session);
+        }
+
+    }
+
+    /**
+     * @return The number of players whose place is being held
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    private void tick() {
+
+        long now = scheduler.getTick();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            if (session.deadline > now) {
+                break;
+            }
+            iterator.remove();
+            expire(session);
+        }
+
+        if (sessions.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+
+    }
+
+    private void expire(Session session) {
+        // The arena might have removed them already
+        if (session.user.getCurrentArena() == session.arena) {
+            session.arena.drop(session.user);
+            session.user.setCurrentArena(null);
+        }
+    }
+
+}
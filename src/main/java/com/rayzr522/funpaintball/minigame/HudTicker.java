@@ -0,0 +1,153 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.Arrays;
+
+import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.Reflection;
+
+/**
+ * Shows countdowns (reloading, etc.) in the action bar of the players of an
+ * arena. All countdowns of an arena are kept in flat arrays indexed by the
+ * {@link Roster} slot of the player and rendered together in one pass per
+ * tick, and a player is only sent an update when the number of seconds shown
+ * to them changes.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#countdown(User, String, double)
+ * 
+ */
+public class HudTicker {
+
+    private Roster   roster;
+
+    private User[]   users = new User[8];
+    private String[] keys  = new String[8];
+    private long[]   ends  = new long[8];
+    private int[]    shown = new int[8];
+    private int      active;
+
+    /**
+     * @param roster
+     *            the roster of the arena, used for looking up slots
+     */
+    public HudTicker(Roster roster) {
+        this.roster = roster;
+    }
+
+    /**
+     * Starts a countdown for a player, replacing any countdown they already
+     * had
+     * 
+     * @param user
+     *            the player
+     * @param key
+     *            the key of the message to show. See {@link Msg}. The number
+     *            of seconds left is passed as <code>{0}</code>.
+     * @param end
+     *            the tick the countdown ends on
+     */
+    public void start(User user, String key, long end) {
+
+        int slot = roster.getSlot(user);
+        if (slot < 0) {
+            return;
+        }
+        if (slot >= users.length) {
+            grow(roster.capacity());
+        }
+
+        if (users[slot] == null) {
+            active++;
+        }
+        users[slot] = user;
+        keys[slot] = key;
+        ends[slot] = end;
+        shown[slot] = -1;
+
+    }
+
+    private void grow(int needed) {
+
+        int size = users.length;
+        while (size < needed) {
+            size *= 2;
+        }
+        users = Arrays.copyOf(users, size);
+        keys = Arrays.copyOf(keys, size);
+        ends = Arrays.copyOf(ends, size);
+        shown = Arrays.copyOf(shown, size);
+
+    }
+
+    /**
+     * Stops the countdown of a player, if they have one. Must be called
+     * before they are taken off the roster.
+     * 
+     * @param user
+     *            the player
+     */
+    public void remove(User user) {
+
+        int slot = roster.getSlot(user);
+        if (slot >= 0 && slot < users.length && users[slot] != null) {
+            users[slot] = null;
+            keys[slot] = null;
+            active--;
+        }
+
+    }
+
+    /**
+     * Stops all countdowns
+     */
+    public void clear() {
+        active = 0;
+        Arrays.fill(users, null);
+        Arrays.fill(keys, null);
+    }
+
+    /**
+     * @return Whether or not there are no active countdowns
+     */
+    public boolean isEmpty() {
+        return active == 0;
+    }
+
+    /**
+     * Updates the action bars of all players with a countdown
+     * 
+     * @param now
+     *            the current tick
+     */
+    public void tick(long now) {
+
+        int end = Math.min(users.length, roster.capacity());
+        for (int i = 0; i < end; i++) {
+
+            User user = users[i];
+            if (user == null) {
+                continue;
+            }
+
+            long left = ends[i] - now;
+            if (left <= 0) {
+                users[i] = null;
+                keys[i] = null;
+                active--;
+                continue;
+            }
+
+            int seconds = (int) ((left + 19) / 20);
+            if (seconds == shown[i]) {
+                continue;
+            }
+            shown[i] = seconds;
+
+            Reflection.sendActionBar(user.getPlayer(), Msg.get(keys[i], seconds));
+
+        }
+
+    }
+
+}
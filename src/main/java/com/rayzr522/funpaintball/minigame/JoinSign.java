@@ -0,0 +1,129 @@
+package com.rayzr522.funpaintball.minigame;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Sign;
+
+import com.rayzr522.funpaintball.config.ISerializable;
+import com.rayzr522.funpaintball.config.Serialized;
+
+/**
+ * A sign which shows the status of an arena, and joins it when clicked
+ * 
+ * @author Rayzr
+ * 
+ * @see JoinSigns
+ * 
+ */
+public class JoinSign implements ISerializable {
+
+    /**
+     * The first line of a sign which makes it a join sign. The second line is
+     * the name of the arena.
+     */
+    public static final String TAG = "[fpb]";
+
+    @Serialized
+    protected String   arena;
+    @Serialized
+    protected Location location;
+
+    /**
+     * The lines last written to the sign, or {@code null} if it needs to be
+     * written the next time its chunk is loaded
+     */
+    private String[]   shown;
+
+    public JoinSign() {
+    }
+
+    /**
+     * @param arena
+     *            the name of the arena
+     * @param location
+     *            the location of the sign
+     */
+    public JoinSign(String arena, Location location) {
+        this.arena = arena;
+        this.location = location;
+    }
+
+    @Override
+    public void onDeserialize() {
+    }
+
+    @Override
+    public void onPreSerialize() {
+    }
+
+    /**
+     * Writes the given lines to the sign, unless they are already shown or the
+     * chunk of the sign isn't loaded
+     * 
+     * @param lines
+     *            the lines
+     * @return Whether or not the sign was changed
+     */
+    public boolean write(String[] lines) {
+
+        if (lines == shown) {
+            return false;
+        }
+
+        if (!location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+            shown = null;
+            return false;
+        }
+
+        BlockState state = location.getBlock().getState();
+        if (!(state instanceof Sign)) {
+            return false;
+        }
+
+        Sign sign = (Sign) state;
+        for (int i = 0; i < lines.length; i++) {
+            sign.setLine(i, lines[i]);
+        }
+        sign.update();
+        shown = lines;
+        return true;
+
+    }
+
+    /**
+     * Marks the lines as shown without writing them, for when they are
+     * written by a {@link org.bukkit.event.block.SignChangeEvent}
+     * 
+     * @param lines
+     *            the lines
+     */
+    void setShown(String[] lines) {
+        shown = lines;
+    }
+
+    /**
+     * @param block
+     *            a block
+     * @return Whether or not this sign is at that block
+     */
+    public boolean isAt(Block block) {
+        return location.getBlockX() == block.getX() && location.getBlockY() == block.getY() && location.getBlockZ() == block.getZ()
+                && location.getWorld() == block.getWorld();
+    }
+
+    /**
+     * @return the arena
+     */
+    public String getArena() {
+        return arena;
+    }
+
+    /**
+     * @return the location
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+}
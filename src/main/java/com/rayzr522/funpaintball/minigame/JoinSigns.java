@@ -0,0 +1,334 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import com.rayzr522.funpaintball.config.ConfigManager;
+import com.rayzr522.funpaintball.util.Msg;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * Keeps the {@link JoinSign join signs} of every arena up to date. Signs are
+ * only rewritten when the {@link ArenaStatus} of their arena changes, all
+ * changes within a tick are written together on the next tick, and signs in
+ * unloaded chunks are skipped until their chunk loads. An idle hub full of
+ * signs costs nothing. Signs in worlds which aren't loaded yet are kept as
+ * they were read, so they are still saved, until their world loads.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#getStatus()
+ * 
+ */
+public class JoinSigns {
+
+    private Minigame                              minigame;
+    private TimingWheel                           scheduler;
+
+    // Keyed by lower-case arena name
+    private Map<String, List<JoinSign>>           byArena  = new HashMap<>();
+    private Map<World, Map<Long, List<JoinSign>>> byChunk  = new HashMap<>();
+    private Map<String, String[]>                 rendered = new HashMap<>();
+
+    // Signs whose world isn't loaded, as read from signs.yml
+    private List<Map<String, Object>>             pending  = new ArrayList<>();
+
+    private Set<Arena>                            dirty    = new LinkedHashSet<>();
+    private TimingWheel.Scope                     scope    = new TimingWheel.Scope();
+    private TimingWheel.Task                      task;
+
+    public JoinSigns(Minigame minigame, TimingWheel scheduler) {
+        this.minigame = minigame;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Called whenever an arena publishes a new status. Does nothing if the
+     * arena has no signs.
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void changed(Arena arena) {
+
+        if (!byArena.containsKey(arena.getName().toLowerCase())) {
+            return;
+        }
+
+        dirty.add(arena);
+        if (task == null) {
+            task = scheduler.later(scope, this::flush, 1L);
+        }
+
+    }
+
+    private void flush() {
+
+        task = null;
+
+        Iterator<Arena> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+
+            Arena arena = iterator.next();
+            iterator.remove();
+
+            String key = arena.getName().toLowerCase();
+            List<JoinSign> signs = byArena.get(key);
+            if (signs == null) {
+                continue;
+            }
+
+            String[] lines = render(arena.getStatus());
+            String[] old = rendered.get(key);
+            if (Arrays.equals(lines, old)) {
+                // Lets signs which are up to date skip the write
+                lines = old;
+            } else {
+                rendered.put(key, lines);
+            }
+
+            for (JoinSign sign : signs) {
+                sign.write(lines);
+            }
+
+        }
+
+    }
+
+    /**
+     * @param status
+     *            the status of an arena
+     * @return The lines of the signs of that arena
+     */
+    public static String[] render(ArenaStatus status) {
+
+        String state;
+        switch (status.getState()) {
+            case Arena.STARTING:
+                state = Msg.get("sign.starting");
+                break;
+            case Arena.RUNNING:
+                state = Msg.get("sign.running");
+                break;
+            default:
+                state = Msg.get("sign.waiting");
+                break;
+        }
+
+        Object[] objects = { status.getName(), state, status.getPlayers(), status.getMaxPlayers(), status.getScoreBlue(), status.getScoreRed() };
+
+        String[] lines = new String[4];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = Msg.get("sign.line-" + (i + 1), objects);
+        }
+        return lines;
+
+    }
+
+    /**
+     * Adds a sign
+     * 
+     * @param sign
+     *            the sign
+     * @return The lines the sign should show right now, or {@code null} if its
+     *         arena doesn't exist
+     */
+    public String[] add(JoinSign sign) {
+
+        if (sign.getLocation() == null || sign.getLocation().getWorld() == null) {
+            System.err.println("Skipping join sign for '" + sign.getArena() + "', its world is not loaded");
+            return null;
+        }
+
+        String key = sign.getArena().toLowerCase();
+        byArena.computeIfAbsent(key, k -> new ArrayList<>()).add(sign);
+        byChunk.computeIfAbsent(sign.getLocation().getWorld(), w -> new HashMap<>()).computeIfAbsent(chunkKey(sign), k -> new ArrayList<>()).add(sign);
+
+        Arena arena = minigame.getArena(sign.getArena());
+        if (arena == null) {
+            return null;
+        }
+
+        // The next flush compares against these, so nothing is written twice
+        String[] lines = render(arena.getStatus());
+        rendered.put(key, lines);
+        sign.setShown(lines);
+        return lines;
+
+    }
+
+    /**
+     * Removes the sign at a block
+     * 
+     * @param block
+     *            the block
+     * @return The sign that was removed, or {@code null} if there was no sign
+     *         there
+     */
+    public JoinSign remove(Block block) {
+
+        JoinSign sign = get(block);
+        if (sign == null) {
+            return null;
+        }
+
+        String key = sign.getArena().toLowerCase();
+        List<JoinSign> signs = byArena.get(key);
+        signs.remove(sign);
+        if (signs.isEmpty()) {
+            byArena.remove(key);
+            rendered.remove(key);
+        }
+
+        Map<Long, List<JoinSign>> chunks = byChunk.get(block.getWorld());
+        List<JoinSign> inChunk = chunks.get(chunkKey(sign));
+        inChunk.remove(sign);
+        if (inChunk.isEmpty()) {
+            chunks.remove(chunkKey(sign));
+        }
+
+        return sign;
+
+    }
+
+    /**
+     * @param block
+     *            a block
+     * @return The sign at that block, or {@code null} if there is none
+     */
+    public JoinSign get(Block block) {
+
+        Map<Long, List<JoinSign>> chunks = byChunk.get(block.getWorld());
+        if (chunks == null) {
+            return null;
+        }
+
+        List<JoinSign> signs = chunks.get(ArenaIndex.chunkKey(block.getX() >> 4, block.getZ() >> 4));
+        if (signs == null) {
+            return null;
+        }
+
+        for (JoinSign sign : signs) {
+            if (sign.isAt(block)) {
+                return sign;
+            }
+        }
+        return null;
+
+    }
+
+    /**
+     * Writes the signs in a chunk which changed while it was unloaded
+     * 
+     * @param chunk
+     *            the chunk that was loaded
+     */
+    public void onChunkLoad(Chunk chunk) {
+
+        Map<Long, List<JoinSign>> chunks = byChunk.get(chunk.getWorld());
+        if (chunks == null) {
+            return;
+        }
+
+        List<JoinSign> signs = chunks.get(ArenaIndex.chunkKey(chunk.getX(), chunk.getZ()));
+        if (signs == null) {
+            return;
+        }
+
+        for (JoinSign sign : signs) {
+            Arena arena = minigame.getArena(sign.getArena());
+            if (arena != null) {
+                changed(arena);
+            }
+        }
+
+    }
+
+    /**
+     * Keeps a sign whose world isn't loaded until it is
+     * 
+     * @param data
+     *            the sign as read from signs.yml
+     * 
+     * @see JoinSigns#onWorldLoad(World)
+     */
+    public void addPending(Map<String, Object> data) {
+        pending.add(data);
+    }
+
+    /**
+     * Adds the signs which were waiting for a world to load
+     * 
+     * @param world
+     *            the world that was loaded
+     */
+    public void onWorldLoad(World world) {
+
+        Iterator<Map<String, Object>> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+
+            JoinSign sign = (JoinSign) ConfigManager.deserialize(JoinSign.class, iterator.next());
+            if (sign == null || sign.getLocation() == null || sign.getLocation().getWorld() != world) {
+                continue;
+            }
+            iterator.remove();
+
+            add(sign);
+            // It still shows whatever it showed before the restart
+            sign.setShown(null);
+            Arena arena = minigame.getArena(sign.getArena());
+            if (arena != null) {
+                changed(arena);
+            }
+
+        }
+
+    }
+
+    /**
+     * @return The signs whose world isn't loaded, as read from signs.yml
+     */
+    public List<Map<String, Object>> getPending() {
+        return pending;
+    }
+
+    /**
+     * Rewrites every sign on the next tick
+     */
+    public void refreshAll() {
+        rendered.clear();
+        for (String name : byArena.keySet()) {
+            Arena arena = minigame.getArena(name);
+            if (arena != null) {
+                changed(arena);
+            }
+        }
+    }
+
+    /**
+     * @return Every sign
+     */
+    public List<JoinSign> getSigns() {
+        List<JoinSign> all = new ArrayList<>();
+        for (Collection<JoinSign> signs : byArena.values()) {
+            all.addAll(signs);
+        }
+        return all;
+    }
+
+    private static long chunkKey(JoinSign sign) {
+        return ArenaIndex.chunkKey(sign.getLocation().getBlockX() >> 4, sign.getLocation().getBlockZ() >> 4);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.World;
+
+import com.rayzr522.funpaintball.Config;
+
+/**
+ * King of the hill. A team scores a point for every second it is the only
+ * team on the hill region of the arena.<br>
+ * <br>
+ * The number of players of each team on the hill is kept up to date as
+ * players cross block boundaries, die or leave, so checking who holds the hill
+ * each tick doesn't look at any players.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#getHill()
+ * 
+ */
+public class KingOfTheHillMode implements MatchMode {
+
+    public static final String NAME   = "koth";
+
+    // The team of everyone on the hill
+    private Map<UUID, Integer> onHill = new HashMap<>();
+    private int[]              counts = new int[Roster.TEAMS];
+
+    private int                holder = -1;
+    private int                held;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isTeamBased() {
+        return true;
+    }
+
+    @Override
+    public void onStart(Arena arena) {
+        onHill.clear();
+        counts = new int[Roster.TEAMS];
+        holder = -1;
+        held = 0;
+    }
+
+    @Override
+    public void tick(Arena arena, long deadline) {
+
+        int blue = counts[Arena.BLUE_TEAM];
+        int red = counts[Arena.RED_TEAM];
+        int now = blue > 0 && red == 0 ? Arena.BLUE_TEAM : (red > 0 && blue == 0 ? Arena.RED_TEAM : -1);
+
+        if (now != holder) {
+            if (now >= 0) {
+                arena.announce("hill-captured", now == Arena.BLUE_TEAM ? Config.TEAM_BLUE : Config.TEAM_RED);
+            } else if (blue > 0) {
+                arena.announce("hill-contested");
+            }
+            holder = now;
+            held = 0;
+        }
+
+        if (holder >= 0 && ++held >= 20) {
+            held = 0;
+            arena.checkScoreLimit(arena.addScore(holder, 1));
+        }
+
+    }
+
+    @Override
+    public void onDeath(Arena arena, User user, User killer) {
+        // They are sent to the death box, which doesn't fire a move event
+        leaveHill(user);
+    }
+
+    @Override
+    public void onMove(Arena arena, User user, World world, int x, int y, int z) {
+
+        if (!arena.getHill().contains(world, x, y, z)) {
+            leaveHill(user);
+            return;
+        }
+
+        int team = user.getTeam();
+        if (team >= 0 && onHill.putIfAbsent(user.getId(), team) == null) {
+            counts[team]++;
+        }
+
+    }
+
+    @Override
+    public void onLeave(Arena arena, User user) {
+        leaveHill(user);
+    }
+
+    private void leaveHill(User user) {
+        Integer team = onHill.remove(user.getId());
+        if (team != null) {
+            counts[team]--;
+        }
+    }
+
+    @Override
+    public int onStop(Arena arena) {
+        return TeamDeathmatchMode.announceTeams(arena);
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.rayzr522.funpaintball.minigame;
+
+import org.bukkit.World;
+
+/**
+ * The rules of a match. Each arena picks one through its {@code mode} setting
+ * in arenas.yml and gets its own instance, so modes can keep state for the
+ * match being played.<br>
+ * <br>
+ * Team scores are kept by the arena, see {@link Arena#addScore(int, int)}.
+ * Modes call {@link Arena#checkScoreLimit(int)} after a score goes up, which
+ * ends the match once {@link Arena#getScoreLimit()} is reached.
+ * Everything is called on the main thread, and only while the match is
+ * running.
+ * 
+ * @author Rayzr
+ * 
+ * @see MatchMode#create(String)
+ * 
+ */
+public interface MatchMode {
+
+    /**
+     * Makes the rules for the given mode
+     * 
+     * @param name
+     *            the name of the mode, one of {@code tdm}, {@code ffa} or
+     *            {@code koth}
+     * @return The rules, or {@code null} if there is no mode with that name
+     */
+    public static MatchMode create(String name) {
+        switch (name.toLowerCase()) {
+            case TeamDeathmatchMode.NAME:
+                return new TeamDeathmatchMode();
+            case FreeForAllMode.NAME:
+                return new FreeForAllMode();
+            case KingOfTheHillMode.NAME:
+                return new KingOfTheHillMode();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return The name of this mode, as used in arenas.yml
+     */
+    public String getName();
+
+    /**
+     * @return Whether or not players play in teams. If not, players can hit
+     *         their own team and ratings aren't changed.
+     */
+    public boolean isTeamBased();
+
+    /**
+     * Called when the match starts, after the scores were reset
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void onStart(Arena arena);
+
+    /**
+     * Called once every tick while the match is running
+     * 
+     * @param arena
+     *            the arena
+     * @param deadline
+     *            the {@link System#nanoTime()} by which this should return.
+     *            Work that doesn't fit should be left for the next tick.
+     */
+    public void tick(Arena arena, long deadline);
+
+    /**
+     * Called when a player dies
+     * 
+     * @param arena
+     *            the arena
+     * @param user
+     *            the player who died
+     * @param killer
+     *            the player who killed them, or {@code null}
+     */
+    public void onDeath(Arena arena, User user, User killer);
+
+    /**
+     * Called when a player in the match moves into a different block
+     * 
+     * @param arena
+     *            the arena
+     * @param user
+     *            the player
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     */
+    public void onMove(Arena arena, User user, World world, int x, int y, int z);
+
+    /**
+     * Called when a player leaves or disconnects during the match
+     * 
+     * @param arena
+     *            the arena
+     * @param user
+     *            the player
+     */
+    public void onLeave(Arena arena, User user);
+
+    /**
+     * Called when the match ends, before the players are sent out. This
+     * should announce the winner.
+     * 
+     * @param arena
+     *            the arena
+     * @return The team that won, or -1 for a tie or if this mode has no teams
+     */
+    public int onStop(Arena arena);
+
+}
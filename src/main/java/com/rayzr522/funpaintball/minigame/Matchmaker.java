@@ -0,0 +1,168 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.rayzr522.funpaintball.Config;
+
+/**
+ * Keeps every arena which can currently be joined sorted by how many players
+ * it still needs before its match can start, so {@code /fpb play} can send a
+ * player to the arena that will start soonest without looking at every arena.
+ * Arenas which are already counting down need no more players, so they always
+ * come first.<br>
+ * <br>
+ * Arenas are also grouped into buckets of {@link Config#RATING_BUCKET} by the
+ * average rating of their players, so finding a balanced match is a lookup of
+ * the player's own bucket and its neighbours. Empty arenas have no rating and
+ * are kept separately.<br>
+ * <br>
+ * Arenas must call {@link Minigame#onArenaChanged(Arena)} whenever a player
+ * joins or leaves or the state changes, which moves them in O(log n).
+ * 
+ * @author Rayzr
+ * 
+ * @see Minigame#findMatch(double)
+ * 
+ */
+public class Matchmaker {
+
+    private static class Entry {
+
+        private final Arena arena;
+        private final long  order;
+        private int         needed;
+        private Integer     bucket;
+
+        private Entry(Arena arena, long order) {
+            this.arena = arena;
+            this.order = order;
+        }
+
+    }
+
+    // Ties go to the arena which was seen first, so the order never changes
+    // while an entry is in a set
+    private static final Comparator<Entry>   COMPARATOR = Comparator.<Entry> comparingInt(e -> e.needed).thenComparingLong(e -> e.order);
+
+    private TreeMap<Integer, TreeSet<Entry>> buckets    = new TreeMap<>();
+    private TreeSet<Entry>                   empty      = new TreeSet<>(COMPARATOR);
+    private Map<Arena, Entry>                entries    = new HashMap<>();
+    private long                             counter;
+
+    /**
+     * Moves an arena to its new place, or takes it out if it can no longer be
+     * joined
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void update(Arena arena) {
+
+        Entry entry = entries.get(arena);
+        if (entry == null) {
+            entry = new Entry(arena, counter++);
+            entries.put(arena, entry);
+        } else {
+            // Has to be removed before the key changes
+            unlink(entry);
+        }
+
+        if (arena.isJoinable()) {
+            entry.needed = arena.getMinPlayers() - arena.getPlayerCount();
+            double rating = arena.getAverageRating();
+            entry.bucket = Double.isNaN(rating) ? null : bucket(rating);
+            link(entry);
+        }
+
+    }
+
+    /**
+     * Forgets about an arena completely
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void remove(Arena arena) {
+        Entry entry = entries.remove(arena);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Finds the arena a player with the given rating should join. This is the
+     * arena that starts soonest in the closest rating bucket, as long as that
+     * is within {@link Config#RATING_SPREAD} buckets. Otherwise an empty arena
+     * is preferred, and if there is none, the closest bucket is used anyway.
+     * 
+     * @param rating
+     *            the rating of the player
+     * @return The arena, or {@code null} if no arena can be joined
+     */
+    public Arena best(double rating) {
+
+        int own = bucket(rating);
+        Integer below = buckets.floorKey(own);
+        Integer above = buckets.ceilingKey(own);
+
+        Integer closest;
+        if (below == null) {
+            closest = above;
+        } else if (above == null) {
+            closest = below;
+        } else {
+            closest = own - below <= above - own ? below : above;
+        }
+
+        if (closest != null && Math.abs(closest - own) <= Config.RATING_SPREAD) {
+            return buckets.get(closest).first().arena;
+        }
+        if (!empty.isEmpty()) {
+            return empty.first().arena;
+        }
+        return closest == null ? null : buckets.get(closest).first().arena;
+
+    }
+
+    /**
+     * @return The number of joinable arenas
+     */
+    public int size() {
+        int size = empty.size();
+        for (TreeSet<Entry> set : buckets.values()) {
+            size += set.size();
+        }
+        return size;
+    }
+
+    private static int bucket(double rating) {
+        return (int) Math.floor(rating / Math.max(1.0, Config.RATING_BUCKET));
+    }
+
+    private void link(Entry entry) {
+        if (entry.bucket == null) {
+            empty.add(entry);
+        } else {
+            buckets.computeIfAbsent(entry.bucket, k -> new TreeSet<>(COMPARATOR)).add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+
+        if (entry.bucket == null) {
+            empty.remove(entry);
+            return;
+        }
+
+        TreeSet<Entry> set = buckets.get(entry.bucket);
+        if (set != null && set.remove(entry) && set.isEmpty()) {
+            buckets.remove(entry.bucket);
+        }
+
+    }
+
+}
@@ -3,21 +3,46 @@ package com.rayzr522.funpaintball.minigame;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import com.rayzr522.funpaintball.FunPaintBall;
 import com.rayzr522.funpaintball.config.ConfigManager;
+import com.rayzr522.funpaintball.util.WorkQueue;
 
 public class Minigame {
 
-    private JavaPlugin       plugin;
-    private ConfigManager    cm;
-    private List<Arena>      arenas;
+    private JavaPlugin            plugin;
+    private ConfigManager         cm;
+    private List<Arena>           arenas;
+    private Map<Arena, ArenaPool> pools;
+    private Map<String, Arena>    names;
+    private Matchmaker            matchmaker;
+    private PartyPlacer           placer;
+    private PartyManager          parties;
+    private ArenaIndex            index;
+    private OutlineRenderer       outlineRenderer;
+    private ChunkResidency        residency;
+    private GraceSessions         grace;
+    private JoinSigns             signs;
+    private ArenaMenu             menu;
 
-    private MinigameListener listener;
+    private MinigameListener      listener;
+
+    private boolean               savePending;
+
+    // Read by getStatuses() from any thread, so it is replaced, never changed
+    private volatile List<Arena>  published = Collections.emptyList();
 
     public Minigame(JavaPlugin plugin, String name) {
 
@@ -26,6 +51,17 @@ public class Minigame {
         cm = new ConfigManager(plugin);
 
         arenas = new ArrayList<>();
+        pools = new HashMap<>();
+        names = new HashMap<>();
+        matchmaker = new Matchmaker();
+        placer = new PartyPlacer();
+        parties = new PartyManager(placer);
+        index = new ArenaIndex();
+        outlineRenderer = new OutlineRenderer(FunPaintBall.INSTANCE.getScheduler());
+        residency = new ChunkResidency(FunPaintBall.INSTANCE.getScheduler());
+        grace = new GraceSessions(FunPaintBall.INSTANCE.getScheduler());
+        signs = new JoinSigns(this, FunPaintBall.INSTANCE.getScheduler());
+        menu = new ArenaMenu(FunPaintBall.INSTANCE.getScheduler());
 
         // Register listener. This is required for game logic
         listener = new MinigameListener(this);
@@ -45,15 +81,42 @@ public class Minigame {
                 System.err.println("Failed to load arena with key '" + key + "'... skipping");
                 continue;
             }
-            arenas.add(arena);
+            addArena(arena);
         }
 
+        rebuildIndex();
+
+        YamlConfiguration signConfig = getConfig("signs.yml");
+        for (String key : signConfig.getKeys(false)) {
+            JoinSign sign = cm.load(JoinSign.class, signConfig.getConfigurationSection(key));
+            if (sign == null) {
+                System.err.println("Failed to load join sign with key '" + key + "'... skipping");
+                continue;
+            }
+            if (sign.getLocation() == null) {
+                // Its world isn't loaded yet, see JoinSigns#onWorldLoad
+                signs.addPending(ConfigManager.convertToMap(signConfig.getConfigurationSection(key)));
+                continue;
+            }
+            signs.add(sign);
+        }
+        // The signs may show an old status from before the restart
+        signs.refreshAll();
+
+        UserData.load(getConfig("users.yml"));
+
     }
 
     /**
      * Save all config files related to the minigame
      */
     public void save() {
+        saveArenas();
+        saveSigns();
+        saveUsers();
+    }
+
+    private void saveArenas() {
 
         YamlConfiguration arenaConfig = getConfig("arenas.yml");
 
@@ -62,19 +125,71 @@ public class Minigame {
         }
         saveConfig("arenas.yml", arenaConfig);
 
-        YamlConfiguration playersConfig = getConfig("userData.yml");
+    }
+
+    private void saveSigns() {
+
+        // Start from scratch so removed signs are gone
+        YamlConfiguration signConfig = getConfig("signs.yml");
+        for (String key : signConfig.getKeys(false)) {
+            signConfig.set(key, null);
+        }
+        List<JoinSign> all = signs.getSigns();
+        for (int i = 0; i < all.size(); i++) {
+            cm.save(all.get(i), signConfig.createSection(String.valueOf(i)));
+        }
+        // Signs in worlds that aren't loaded are written back as they were
+        int key = all.size();
+        for (Map<String, Object> data : signs.getPending()) {
+            ConfigurationSection section = signConfig.createSection(String.valueOf(key++));
+            for (Entry<String, Object> entry : data.entrySet()) {
+                section.set(entry.getKey(), entry.getValue());
+            }
+        }
+        saveConfig("signs.yml", signConfig);
+
+    }
+
+    private void saveUsers() {
+
+        YamlConfiguration playersConfig = getConfig("users.yml");
         UserData.save(playersConfig);
         saveConfig("users.yml", playersConfig);
 
     }
 
+    /**
+     * Saves all config files once the server has time for it. Several
+     * requests before the save happens only save once. Each file is its own
+     * job, so a save never takes more than one file's worth of a tick.
+     * 
+     * @see WorkQueue#LOW
+     */
+    public void requestSave() {
+
+        if (savePending) {
+            return;
+        }
+
+        WorkQueue work = FunPaintBall.INSTANCE.getWork();
+        savePending = work.submit(WorkQueue.LOW, () -> {
+            // Anything that changes from here on needs another save
+            savePending = false;
+            saveArenas();
+        });
+        work.submit(WorkQueue.LOW, this::saveSigns);
+        work.submit(WorkQueue.LOW, this::saveUsers);
+
+    }
+
     /**
      * Force stops all arenas
      * 
      * @see Arena#forceStop()
      */
     public void stop() {
-        for (Arena arena : arenas) {
+        grace.expireAll();
+        for (Arena arena : getAllArenas()) {
             arena.forceStop();
         }
     }
@@ -86,16 +201,184 @@ public class Minigame {
      * @return The arena, or {@code null} if no arena was found
      */
     public Arena getArena(String name) {
+        return names.get(name.toLowerCase());
+    }
 
-        for (Arena arena : arenas) {
-            if (arena.getName().equalsIgnoreCase(name)) {
-                return arena;
+    /**
+     * Get the copy of an arena a player should join. If every running copy is
+     * full or already playing, a new one is started if the arena allows it.
+     * 
+     * @param template the arena, as returned by {@link Minigame#getArena(String)}
+     * @return The copy to join, or the arena itself if no copy can be joined
+     * 
+     * @see ArenaPool
+     */
+    public Arena getJoinable(Arena template) {
+
+        ArenaPool pool = pools.get(template);
+        if (pool == null) {
+            return template;
+        }
+
+        int before = pool.getInstances().size();
+        Arena arena = pool.getJoinable();
+        if (arena == null) {
+            return template;
+        }
+
+        if (pool.getInstances().size() != before) {
+            rebuildIndex();
+            onArenaChanged(arena);
+        }
+        return arena;
+
+    }
+
+    /**
+     * Called when a player couldn't join an arena returned by
+     * {@link Minigame#getJoinable(Arena)} or
+     * {@link Minigame#findMatch(double)}. If that was a new copy which is
+     * still empty, it is removed again.
+     * 
+     * @param arena the arena
+     */
+    public void joinFailed(Arena arena) {
+        arena.checkIdle();
+    }
+
+    /**
+     * Removes a copy of an arena which is no longer in use
+     * 
+     * @param instance the copy
+     * 
+     * @see ArenaPool#remove(Arena)
+     */
+    public void releaseInstance(Arena instance) {
+
+        ArenaPool pool = pools.get(instance.getTemplate());
+        if (pool == null || !pool.remove(instance)) {
+            return;
+        }
+
+        residency.release(instance);
+        matchmaker.remove(instance);
+        placer.remove(instance);
+        rebuildIndex();
+
+    }
+
+    /**
+     * Finds the arena a player should be sent to by {@code /fpb play}. This is
+     * the joinable arena closest to their rating which needs the fewest
+     * players to start. If no arena can be joined, a new copy of a map is
+     * started if any map allows it.
+     * 
+     * @param rating the rating of the player
+     * @return The arena, or {@code null} if there is nothing to join
+     * 
+     * @see Matchmaker#best(double)
+     */
+    public Arena findMatch(double rating) {
+
+        Arena best = matchmaker.best(rating);
+        while (best != null && !best.isJoinable()) {
+            // It changed without telling us, e.g. a spawn was removed
+            matchmaker.update(best);
+            best = matchmaker.best(rating);
+        }
+        if (best != null) {
+            return best;
+        }
+
+        for (Arena template : arenas) {
+            Arena instance = getJoinable(template);
+            if (instance != template || template.isJoinable()) {
+                return instance;
             }
         }
         return null;
 
     }
 
+    /**
+     * Called by arenas whenever a player joins or leaves or the state changes
+     * 
+     * @param arena the arena
+     */
+    public void onArenaChanged(Arena arena) {
+        matchmaker.update(arena);
+        placer.update(arena);
+    }
+
+    /**
+     * Called by arenas whenever they publish a new {@link ArenaStatus}
+     * 
+     * @param arena the arena
+     */
+    public void onStatusChanged(Arena arena) {
+        signs.changed(arena);
+        menu.changed(arena);
+    }
+
+    /**
+     * Sends a party into an arena, all on the same team. If no arena has room
+     * for them, a new copy of a map is started if any map allows it, otherwise
+     * they wait until there is room.
+     * 
+     * @param party the party
+     * @return Whether or not they were placed right away
+     * 
+     * @see PartyPlacer
+     */
+    public boolean play(Party party) {
+
+        if (placer.place(party)) {
+            return true;
+        }
+
+        int size = party.getReadyMembers().size();
+        if (size == 0) {
+            return false;
+        }
+
+        // Starting a copy fills it from the queue, see PartyPlacer#update
+        for (Arena template : arenas) {
+            ArenaPool pool = pools.get(template);
+            Arena instance = pool == null ? null : pool.grow();
+            if (instance == null) {
+                continue;
+            }
+            if (size > instance.getFreeSlots(Arena.BLUE_TEAM)) {
+                // Too big for one team of this map, so it would stay empty
+                pool.remove(instance);
+                continue;
+            }
+            rebuildIndex();
+            onArenaChanged(instance);
+            // Nobody might have been placed in it after all
+            instance.checkIdle();
+            return !party.isQueued();
+        }
+        return false;
+
+    }
+
+    /**
+     * @return Every arena and every running copy of an arena
+     */
+    public List<Arena> getAllArenas() {
+        List<Arena> all = new ArrayList<>();
+        for (Arena arena : arenas) {
+            ArenaPool pool = pools.get(arena);
+            if (pool != null) {
+                all.addAll(pool.getInstances());
+            } else {
+                all.add(arena);
+            }
+        }
+        return all;
+    }
+
     /**
      * Saves a config file
      * 
@@ -152,10 +435,20 @@ public class Minigame {
         }
 
         Arena arena = new Arena(name);
-        arenas.add(arena);
+        addArena(arena);
+        rebuildIndex();
         return arena;
     }
 
+    private void addArena(Arena arena) {
+        arena.setMinigame(this);
+        arenas.add(arena);
+        pools.put(arena, new ArenaPool(arena));
+        names.put(arena.getName().toLowerCase(), arena);
+        menu.setArenas(arenas);
+        onArenaChanged(arena);
+    }
+
     /**
      * Removes an arena
      * 
@@ -164,7 +457,21 @@ public class Minigame {
      *         arena wasn't in the list of arenas.
      */
     public boolean removeArena(Arena arena) {
-        return arenas.remove(arena);
+        if (!arenas.remove(arena)) {
+            return false;
+        }
+        names.remove(arena.getName().toLowerCase());
+        menu.setArenas(arenas);
+        for (Arena instance : pools.remove(arena).getInstances()) {
+            if (instance != arena) {
+                instance.forceStop();
+            }
+            residency.release(instance);
+            matchmaker.remove(instance);
+            placer.remove(instance);
+        }
+        rebuildIndex();
+        return true;
     }
 
     /**
@@ -180,7 +487,7 @@ public class Minigame {
         if (arena == null) {
             return false;
         }
-        return arenas.remove(arena);
+        return removeArena(arena);
     }
 
     /**
@@ -190,12 +497,124 @@ public class Minigame {
      * @return Whether or not it's within any of the known arenas
      */
     public boolean isInArena(Location location) {
+        return index.isInArena(location);
+    }
+
+    /**
+     * Check if a block is within any arena
+     * 
+     * @param world the world of the block
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @return Whether or not it's within any of the known arenas
+     * 
+     * @see Region#contains(World, int, int, int)
+     */
+    public boolean isInArena(World world, int x, int y, int z) {
+        return index.isInArena(world, x, y, z);
+    }
+
+    /**
+     * Check whether a block is protected by the given flag of any arena
+     * 
+     * @param block the block
+     * @param flag the flag
+     * @return Whether or not the flag is set for that block
+     * 
+     * @see ArenaIndex#getFlags(World, int, int, int)
+     */
+    public boolean hasFlag(Block block, RegionFlag flag) {
+        return (index.getFlags(block.getWorld(), block.getX(), block.getY(), block.getZ()) & flag.mask()) != 0;
+    }
+
+    /**
+     * Removes all blocks which are within an arena from the given list
+     * 
+     * @param blocks the blocks to filter (usually from an explosion)
+     * @return The number of blocks that were removed
+     * 
+     * @see ArenaIndex#removeProtected(List)
+     */
+    public int removeProtected(List<Block> blocks) {
+        return index.removeProtected(blocks);
+    }
+
+    /**
+     * Rebuilds the {@link ArenaIndex} used by
+     * {@link Minigame#isInArena(Location)}. This must be called whenever the
+     * regions of an arena are changed.
+     */
+    public void rebuildIndex() {
+        List<Arena> all = getAllArenas();
+        index.rebuild(all);
+        published = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Get the status of every arena and every running copy of an arena. This
+     * is safe to call from any thread.
+     * 
+     * @return The statuses
+     * 
+     * @see Arena#getStatus()
+     */
+    public List<ArenaStatus> getStatuses() {
+        List<Arena> arenas = published;
+        List<ArenaStatus> statuses = new ArrayList<>(arenas.size());
         for (Arena arena : arenas) {
-            if (arena.isInArena(location)) {
-                return true;
-            }
+            statuses.add(arena.getStatus());
         }
-        return false;
+        return statuses;
+    }
+
+    /**
+     * @return the index
+     */
+    public ArenaIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the outlineRenderer
+     */
+    public OutlineRenderer getOutlineRenderer() {
+        return outlineRenderer;
+    }
+
+    /**
+     * @return the residency
+     */
+    public ChunkResidency getResidency() {
+        return residency;
+    }
+
+    /**
+     * @return the grace
+     */
+    public GraceSessions getGrace() {
+        return grace;
+    }
+
+    /**
+     * @return the signs
+     */
+    public JoinSigns getSigns() {
+        return signs;
+    }
+
+    /**
+     * @return the menu
+     */
+    public ArenaMenu getMenu() {
+        return menu;
+    }
+
+    /**
+     * @return the parties
+     */
+    public PartyManager getParties() {
+        return parties;
     }
 
     /**
@@ -1,24 +1,47 @@
 
 package com.rayzr522.funpaintball.minigame;
 
+import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockBurnEvent;
 import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.entity.ProjectileLaunchEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.FunPaintBall;
+import com.rayzr522.funpaintball.util.Msg;
 import com.rayzr522.funpaintball.util.Respawn;
 
 public class MinigameListener implements Listener {
@@ -49,28 +72,207 @@ public class MinigameListener implements Listener {
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent e) {
-        if (minigame.isInArena(e.getBlock().getLocation())) {
+        if (isProtected(e.getBlock())) {
             e.setCancelled(true);
+            return;
+        }
+
+        if (minigame.getSigns().get(e.getBlock()) == null) {
+            return;
+        }
+        if (!e.getPlayer().hasPermission(Config.PERM_SETUP)) {
+            e.setCancelled(true);
+            return;
         }
+
+        JoinSign sign = minigame.getSigns().remove(e.getBlock());
+        Msg.send(e.getPlayer(), "sign-removed", sign.getArena());
+        minigame.requestSave();
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onSignChange(SignChangeEvent e) {
+
+        if (!JoinSign.TAG.equalsIgnoreCase(e.getLine(0).trim())) {
+            return;
+        }
+
+        Player player = e.getPlayer();
+        if (!player.hasPermission(Config.PERM_SETUP)) {
+            Msg.send(player, "no-permission");
+            return;
+        }
+
+        Arena arena = minigame.getArena(e.getLine(1).trim());
+        if (arena == null) {
+            Msg.send(player, "no-such-map", e.getLine(1).trim());
+            return;
+        }
+
+        String[] lines = minigame.getSigns().add(new JoinSign(arena.getName(), e.getBlock().getLocation()));
+        for (int i = 0; i < lines.length; i++) {
+            e.setLine(i, lines[i]);
+        }
+
+        Msg.send(player, "sign-created", arena.getName());
+        minigame.requestSave();
+
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onSignClick(PlayerInteractEvent e) {
+
+        if (e.getAction() != Action.RIGHT_CLICK_BLOCK) {
+            return;
+        }
+
+        JoinSign sign = minigame.getSigns().get(e.getClickedBlock());
+        if (sign == null) {
+            return;
+        }
+        e.setCancelled(true);
+
+        Player player = e.getPlayer();
+        if (!player.hasPermission(Config.PERM_FPB)) {
+            Msg.send(player, "no-permission");
+            return;
+        }
+
+        Arena arena = minigame.getArena(sign.getArena());
+        if (arena == null) {
+            Msg.send(player, "no-such-map", sign.getArena());
+            return;
+        }
+
+        User user = new User(player);
+        if (user.getCurrentArena() != null) {
+            user.send("already-playing", user.getCurrentArena().getName());
+            return;
+        }
+
+        // Pick a copy of the map that can be joined right now
+        arena = minigame.getJoinable(arena);
+
+        Msg.send(player, "joining", sign.getArena());
+        if (!user.join(arena)) {
+            Msg.send(player, "failed-to-join", sign.getArena());
+            minigame.joinFailed(arena);
+        }
+
     }
 
     @EventHandler
     public void onExplosion(BlockExplodeEvent e) {
-        if (minigame.isInArena(e.getBlock().getLocation())) {
-            e.setCancelled(true);
-        }
+        minigame.removeProtected(e.blockList());
+    }
+
+    @EventHandler
+    public void onEntityExplosion(EntityExplodeEvent e) {
+        minigame.removeProtected(e.blockList());
     }
 
     @EventHandler
     public void onBlockPlace(BlockPlaceEvent e) {
-        if (minigame.isInArena(e.getBlock().getLocation())) {
+        if (isProtected(e.getBlock())) {
             e.setCancelled(true);
         }
     }
 
     @EventHandler
     public void onBlockBurn(BlockBurnEvent e) {
-        if (minigame.isInArena(e.getBlock().getLocation())) {
+        if (isProtected(e.getBlock())) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onLiquidFlow(BlockFromToEvent e) {
+
+        Block to = e.getToBlock();
+        int flags = minigame.getIndex().getFlags(to.getWorld(), to.getX(), to.getY(), to.getZ());
+        if (flags == 0) {
+            return;
+        }
+
+        switch (e.getBlock().getType()) {
+            case WATER:
+            case STATIONARY_WATER:
+                if ((flags & RegionFlag.WATER_FLOW.mask()) != 0) {
+                    e.setCancelled(true);
+                }
+                break;
+            case LAVA:
+            case STATIONARY_LAVA:
+                if ((flags & RegionFlag.LAVA_FLOW.mask()) != 0) {
+                    e.setCancelled(true);
+                }
+                break;
+            default:
+                break;
+        }
+
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent e) {
+
+        if (minigame.hasFlag(e.getBlock(), RegionFlag.PISTONS)) {
+            e.setCancelled(true);
+            return;
+        }
+
+        BlockFace direction = e.getDirection();
+        for (Block block : e.getBlocks()) {
+            if (minigame.hasFlag(block, RegionFlag.PISTONS) || minigame.hasFlag(block.getRelative(direction), RegionFlag.PISTONS)) {
+                e.setCancelled(true);
+                return;
+            }
+        }
+
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent e) {
+
+        if (minigame.hasFlag(e.getBlock(), RegionFlag.PISTONS)) {
+            e.setCancelled(true);
+            return;
+        }
+
+        for (Block block : e.getBlocks()) {
+            if (minigame.hasFlag(block, RegionFlag.PISTONS)) {
+                e.setCancelled(true);
+                return;
+            }
+        }
+
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent e) {
+        if (minigame.hasFlag(e.getBlock(), RegionFlag.LEAF_DECAY)) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onBlockSpread(BlockSpreadEvent e) {
+        RegionFlag flag = e.getNewState().getType() == Material.FIRE ? RegionFlag.FIRE_SPREAD : RegionFlag.BLOCK_SPREAD;
+        if (minigame.hasFlag(e.getBlock(), flag)) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onBlockIgnite(BlockIgniteEvent e) {
+        if (minigame.hasFlag(e.getBlock(), RegionFlag.FIRE_SPREAD)) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+        if (minigame.hasFlag(e.getBlock(), RegionFlag.ENTITY_CHANGE)) {
             e.setCancelled(true);
         }
     }
@@ -84,9 +286,161 @@ public class MinigameListener implements Listener {
         e.setCancelled(true);
     }
 
+    @EventHandler(ignoreCancelled = true)
+    public void onMenuClick(InventoryClickEvent e) {
+
+        if (!(e.getInventory().getHolder() instanceof ArenaMenu)) {
+            return;
+        }
+        // Nothing can be taken out of the menu
+        e.setCancelled(true);
+
+        if (!(e.getWhoClicked() instanceof Player)) {
+            return;
+        }
+
+        Arena arena = minigame.getMenu().getArena(e.getRawSlot());
+        if (arena == null) {
+            return;
+        }
+
+        Player player = (Player) e.getWhoClicked();
+
+        // The inventory can't be closed from within the click event
+        FunPaintBall.INSTANCE.getScheduler().later(null, () -> {
+
+            if (!player.isOnline()) {
+                return;
+            }
+            player.closeInventory();
+
+            User user = new User(player);
+            if (user.getCurrentArena() != null) {
+                user.send("already-playing", user.getCurrentArena().getName());
+                return;
+            }
+
+            // Pick a copy of the map that can be joined right now
+            Arena joinable = minigame.getJoinable(arena);
+
+            user.send("joining", arena.getName());
+            if (!user.join(joinable)) {
+                user.send("failed-to-join", arena.getName());
+                minigame.joinFailed(joinable);
+            }
+
+        }, 1L);
+
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onMenuDrag(InventoryDragEvent e) {
+        if (e.getInventory().getHolder() instanceof ArenaMenu) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent e) {
+        minigame.getSigns().onWorldLoad(e.getWorld());
+    }
+
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent e) {
+        minigame.getSigns().onChunkLoad(e.getChunk());
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        if (minigame.getResidency().isPinned(e.getChunk())) {
+            e.setCancelled(true);
+        }
+    }
+
     @EventHandler
     public void onPlayerLeave(PlayerQuitEvent e) {
-        new User(e.getPlayer()).leave();
+
+        Party party = minigame.getParties().leave(e.getPlayer().getUniqueId());
+        if (party != null) {
+            party.broadcast("party-member-left", e.getPlayer().getName());
+        }
+
+        User user = new User(e.getPlayer());
+        if (minigame.getGrace().hold(user)) {
+            return;
+        }
+
+        if (user.leave()) {
+            minigame.requestSave();
+        }
+
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent e) {
+
+        if (minigame.getGrace().reclaim(e.getPlayer())) {
+            return;
+        }
+
+        // They were removed from an arena while they were offline
+        UserData data = UserData.find(e.getPlayer().getUniqueId());
+        if (data != null && data.getPendingExit() != null) {
+            e.getPlayer().teleport(data.getPendingExit());
+            data.setPendingExit(null);
+        }
+
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent e) {
+
+        Location from = e.getFrom();
+        Location to = e.getTo();
+
+        int x = to.getBlockX();
+        int y = to.getBlockY();
+        int z = to.getBlockZ();
+
+        // Only re-check the boundaries when a block boundary is crossed
+        if (x == from.getBlockX() && y == from.getBlockY() && z == from.getBlockZ() && to.getWorld() == from.getWorld()) {
+            return;
+        }
+
+        UserData data = UserData.find(e.getPlayer().getUniqueId());
+        if (data == null || data.getCurrentArena() == null) {
+            return;
+        }
+
+        Arena arena = data.getCurrentArena();
+
+        Region region = data.getCurrentRegion();
+        if (region != null && region.contains(to.getWorld(), x, y, z)) {
+            arena.onMove(e.getPlayer().getUniqueId(), to.getWorld(), x, y, z);
+            return;
+        }
+
+        region = arena.getBoundary(e.getPlayer().getUniqueId(), to.getWorld(), x, y, z);
+        if (region != null) {
+            data.setCurrentRegion(region);
+            arena.onMove(e.getPlayer().getUniqueId(), to.getWorld(), x, y, z);
+            return;
+        }
+
+        if (arena.getBoundary(e.getPlayer().getUniqueId(), from.getWorld(), from.getBlockX(), from.getBlockY(), from.getBlockZ()) != null) {
+            // Push them back, but let them keep looking around
+            Location back = from.clone();
+            back.setYaw(to.getYaw());
+            back.setPitch(to.getPitch());
+            e.setTo(back);
+            return;
+        }
+
+        // They're not anywhere they should be (e.g. teleported out)
+        User user = new User(e.getPlayer());
+        user.leave();
+        user.send("left-bounds", arena.getName());
+
     }
 
     @EventHandler
@@ -104,13 +458,13 @@ public class MinigameListener implements Listener {
 
         ItemStack item = p.getInventory().getItemInMainHand();
         if (item == null || item.getType() == Material.AIR) {
-            new Countdown(p, 4.0, 1.0, "Reloading", minigame.getPlugin()).start();
-            u.getCurrentArena().later(new BukkitRunnable() {
+            u.getCurrentArena().countdown(u, "reloading", Config.WAIT_RELOAD);
+            u.getCurrentArena().later(new Runnable() {
                 @Override
                 public void run() {
                     p.getInventory().addItem(new ItemStack(Material.SNOW_BALL, 64));
                 }
-            }, 4.0);
+            }, Config.WAIT_RELOAD);
         }
 
     }
@@ -125,11 +479,31 @@ public class MinigameListener implements Listener {
         Player damaged = (Player) e.getEntity();
         Projectile damager = (Projectile) e.getDamager();
 
-        if (damager.getShooter() instanceof Player && new User((Player) damager.getShooter()).getCurrentArena() != null) {
-            damaged.setHealth(0);
-            e.setCancelled(true);
+        if (!(damager.getShooter() instanceof Player)) {
+            return;
         }
 
+        User shooter = new User((Player) damager.getShooter());
+        Arena arena = shooter.getCurrentArena();
+        if (arena == null) {
+            return;
+        }
+
+        e.setCancelled(true);
+        arena.hit(new User(damaged), shooter);
+
+    }
+
+    /**
+     * Check whether a block is protected by any arena, without allocating a
+     * {@link org.bukkit.Location}
+     * 
+     * @param block
+     *            the block
+     * @return Whether or not the block is within an arena
+     */
+    private boolean isProtected(Block block) {
+        return minigame.isInArena(block.getWorld(), block.getX(), block.getY(), block.getZ());
     }
 
 }
@@ -0,0 +1,191 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * Draws the outlines of regions with particles, for setting up arenas. The
+ * particles are only sent to the player viewing the outline, only for edges
+ * close to them, and never more than {@link Config#OUTLINE_PARTICLES} per
+ * player per tick. Large outlines are drawn a piece at a time over several
+ * ticks instead.
+ * 
+ * @author Rayzr
+ * 
+ */
+public class OutlineRenderer {
+
+    private static class Viewer {
+
+        private Player         player;
+        private List<double[]> segments = new ArrayList<>();
+        private List<double[]> colors   = new ArrayList<>();
+        private int            ticksLeft;
+
+        // Where drawing continues from on the next tick
+        private int            segment;
+        private double         progress;
+
+    }
+
+    private TimingWheel        scheduler;
+    private Map<UUID, Viewer>  viewers = new HashMap<>();
+    private TimingWheel.Task   task;
+
+    public OutlineRenderer(TimingWheel scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Starts showing the outlines of the given regions to a player, replacing
+     * anything they were being shown before
+     * 
+     * @param player
+     *            the player
+     * @param regions
+     *            the regions to show
+     * @param colors
+     *            the color of each region, as <code>{red, green, blue}</code>
+     *            from 0 to 1
+     */
+    public void show(Player player, List<Region> regions, List<double[]> colors) {
+
+        Viewer viewer = new Viewer();
+        viewer.player = player;
+        viewer.ticksLeft = (int) (Config.OUTLINE_DURATION * 20);
+
+        for (int i = 0; i < regions.size(); i++) {
+            for (double[] segment : regions.get(i).getOutline()) {
+                viewer.segments.add(segment);
+                viewer.colors.add(colors.get(i));
+            }
+        }
+
+        if (viewer.segments.isEmpty()) {
+            return;
+        }
+
+        viewers.put(player.getUniqueId(), viewer);
+
+        if (task == null) {
+            task = scheduler.every(null, this::tick, 1L, 1L);
+        }
+
+    }
+
+    /**
+     * Stops showing outlines to a player
+     * 
+     * @param player
+     *            the player
+     * @return Whether or not the player was being shown any outlines
+     */
+    public boolean hide(Player player) {
+        return viewers.remove(player.getUniqueId()) != null;
+    }
+
+    private void tick() {
+
+        Iterator<Viewer> iterator = viewers.values().iterator();
+        while (iterator.hasNext()) {
+            Viewer viewer = iterator.next();
+            if (--viewer.ticksLeft < 0 || !viewer.player.isOnline()) {
+                iterator.remove();
+                continue;
+            }
+            draw(viewer);
+        }
+
+        if (viewers.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+
+    }
+
+    private void draw(Viewer viewer) {
+
+        Location loc = viewer.player.getLocation();
+        double px = loc.getX();
+        double py = loc.getY();
+        double pz = loc.getZ();
+        double range = Config.OUTLINE_DISTANCE;
+        double rangeSquared = range * range;
+
+        int budget = Config.OUTLINE_PARTICLES;
+        int count = viewer.segments.size();
+
+        // Visit every segment at most once per tick
+        for (int visited = 0; visited < count && budget > 0; visited++) {
+
+            double[] s = viewer.segments.get(viewer.segment);
+            double dx = s[3] - s[0];
+            double dy = s[4] - s[1];
+            double dz = s[5] - s[2];
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+            if (length > 0 && distanceSquared(s, dx, dy, dz, length, px, py, pz) <= rangeSquared) {
+
+                double[] color = viewer.colors.get(viewer.segment);
+
+                for (; viewer.progress <= length && budget > 0; viewer.progress += 1.0) {
+
+                    double t = viewer.progress / length;
+                    double x = s[0] + dx * t;
+                    double y = s[1] + dy * t;
+                    double z = s[2] + dz * t;
+
+                    double ox = x - px;
+                    double oy = y - py;
+                    double oz = z - pz;
+                    if (ox * ox + oy * oy + oz * oz > rangeSquared) {
+                        continue;
+                    }
+
+                    // With a count of 0 the offsets are used as the color
+                    viewer.player.spawnParticle(Particle.REDSTONE, x, y, z, 0, color[0], color[1], color[2], 1);
+                    budget--;
+
+                }
+
+                if (budget <= 0) {
+                    // Carry on with this segment next tick
+                    return;
+                }
+
+            }
+
+            viewer.progress = 0;
+            viewer.segment = (viewer.segment + 1) % count;
+
+        }
+
+    }
+
+    /**
+     * Squared distance from a point to the closest point of a segment
+     */
+    private static double distanceSquared(double[] s, double dx, double dy, double dz, double length, double px, double py, double pz) {
+
+        double t = ((px - s[0]) * dx + (py - s[1]) * dy + (pz - s[2]) * dz) / (length * length);
+        t = Math.max(0, Math.min(1, t));
+
+        double x = s[0] + dx * t - px;
+        double y = s[1] + dy * t - py;
+        double z = s[2] + dz * t - pz;
+        return x * x + y * y + z * z;
+
+    }
+
+}
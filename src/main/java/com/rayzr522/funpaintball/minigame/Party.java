@@ -0,0 +1,123 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import com.rayzr522.funpaintball.util.Msg;
+
+/**
+ * A group of players who want to play on the same team
+ * 
+ * @author Rayzr
+ * 
+ * @see PartyManager
+ * @see PartyPlacer
+ * 
+ */
+public class Party {
+
+    private UUID       leader;
+    private List<UUID> members = new ArrayList<>();
+
+    /**
+     * The size this party is queued under in the {@link PartyPlacer}, or 0 if
+     * it isn't queued
+     */
+    int                queuedSize;
+
+    public Party(UUID leader) {
+        this.leader = leader;
+        members.add(leader);
+    }
+
+    /**
+     * @return the leader
+     */
+    public UUID getLeader() {
+        return leader;
+    }
+
+    /**
+     * @param id
+     *            the UUID of a player
+     * @return Whether or not that player leads this party
+     */
+    public boolean isLeader(UUID id) {
+        return leader.equals(id);
+    }
+
+    /**
+     * @return the members, leader first
+     */
+    public List<UUID> getMembers() {
+        return members;
+    }
+
+    /**
+     * @return The number of members
+     */
+    public int size() {
+        return members.size();
+    }
+
+    void add(UUID id) {
+        members.add(id);
+    }
+
+    void remove(UUID id) {
+        members.remove(id);
+        if (leader.equals(id) && !members.isEmpty()) {
+            leader = members.get(0);
+        }
+    }
+
+    /**
+     * @return Whether or not this party is waiting for an arena
+     */
+    public boolean isQueued() {
+        return queuedSize > 0;
+    }
+
+    /**
+     * Get the members who can be sent into an arena right now
+     * 
+     * @return The members who are online and not in an arena already
+     */
+    public List<User> getReadyMembers() {
+        List<User> ready = new ArrayList<>(members.size());
+        for (UUID id : members) {
+            Player player = Bukkit.getPlayer(id);
+            if (player == null) {
+                continue;
+            }
+            User user = new User(player);
+            if (user.getCurrentArena() == null) {
+                ready.add(user);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Send a message to every online member
+     * 
+     * @param key
+     *            the key of the message
+     * @param objects
+     *            the values to insert into the message
+     */
+    public void broadcast(String key, Object... objects) {
+        String[] lines = Msg.lines(key, objects);
+        for (UUID id : members) {
+            Player player = Bukkit.getPlayer(id);
+            if (player != null) {
+                player.sendMessage(lines);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+import com.rayzr522.funpaintball.Config;
+
+/**
+ * Keeps track of who is in which {@link Party}, and of pending invites
+ * 
+ * @author Rayzr
+ * 
+ */
+public class PartyManager {
+
+    private Map<UUID, Party> parties = new HashMap<>();
+    private Map<UUID, Party> invites = new HashMap<>();
+    private PartyPlacer      placer;
+
+    public PartyManager(PartyPlacer placer) {
+        this.placer = placer;
+    }
+
+    /**
+     * @param id
+     *            the UUID of a player
+     * @return The party of that player, or {@code null} if they aren't in one
+     */
+    public Party getParty(UUID id) {
+        return parties.get(id);
+    }
+
+    /**
+     * Get the party of a player, making a new one led by them if they aren't
+     * in one yet
+     * 
+     * @param player
+     *            the player
+     * @return The party
+     */
+    public Party getOrCreate(Player player) {
+        Party party = parties.get(player.getUniqueId());
+        if (party == null) {
+            party = new Party(player.getUniqueId());
+            parties.put(player.getUniqueId(), party);
+        }
+        return party;
+    }
+
+    /**
+     * Invites a player to a party, replacing any invite they already had
+     * 
+     * @param party
+     *            the party
+     * @param target
+     *            the player to invite
+     * @return Whether or not they were invited. Will return false if they are
+     *         in a party already or the party is full.
+     */
+    public boolean invite(Party party, Player target) {
+        if (parties.containsKey(target.getUniqueId()) || party.size() >= Config.PARTY_SIZE) {
+            return false;
+        }
+        invites.put(target.getUniqueId(), party);
+        return true;
+    }
+
+    /**
+     * Accepts the pending invite of a player
+     * 
+     * @param player
+     *            the player
+     * @return The party they joined, or {@code null} if they had no invite or
+     *         the party is full
+     */
+    public Party accept(Player player) {
+
+        Party party = invites.remove(player.getUniqueId());
+        if (party == null || party.size() == 0 || party.size() >= Config.PARTY_SIZE || parties.containsKey(player.getUniqueId())) {
+            return null;
+        }
+
+        party.add(player.getUniqueId());
+        parties.put(player.getUniqueId(), party);
+        placer.resized(party);
+        return party;
+
+    }
+
+    /**
+     * Removes a player from their party. Empty parties are disbanded.
+     * 
+     * @param id
+     *            the UUID of the player
+     * @return The party they left, or {@code null} if they weren't in one
+     */
+    public Party leave(UUID id) {
+
+        Party party = parties.remove(id);
+        if (party == null) {
+            return null;
+        }
+
+        party.remove(id);
+        if (party.size() == 0) {
+            placer.dequeue(party);
+        } else {
+            placer.resized(party);
+        }
+        return party;
+
+    }
+
+}
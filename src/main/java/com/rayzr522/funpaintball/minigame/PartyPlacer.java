@@ -0,0 +1,255 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Places whole parties onto one team of one arena. Every team of every
+ * joinable arena is a bin, and bins are kept in a {@link TreeMap} keyed by how
+ * many more players they can take. A party goes into the fullest bin it still
+ * fits in (best fit), so big gaps are left for big parties and arenas fill up
+ * instead of being spread thin.<br>
+ * <br>
+ * Parties that don't fit anywhere wait in a queue per party size. Whenever a
+ * bin gets more room, the biggest waiting party that fits is placed in it, so
+ * neither placing nor waiting ever has to look at every arena.
+ * 
+ * @author Rayzr
+ * 
+ * @see PartyPlacer#place(Party)
+ * 
+ */
+public class PartyPlacer {
+
+    private static class Bin {
+
+        private final Arena arena;
+        private final int   team;
+        private int         free;
+
+        private Bin(Arena arena, int team) {
+            this.arena = arena;
+            this.team = team;
+        }
+
+    }
+
+    private TreeMap<Integer, Set<Bin>>     bins    = new TreeMap<>();
+    private Map<Arena, Bin[]>              byArena = new HashMap<>();
+    // Keyed by the number of ready members a party had when it was queued
+    private TreeMap<Integer, Deque<Party>> waiting = new TreeMap<>();
+
+    // Arenas which changed while a party was being placed
+    private Set<Arena>                     dirty   = new LinkedHashSet<>();
+    private boolean                        placing;
+
+    /**
+     * Updates the bins of an arena, and fills them from the queue if they got
+     * more room. Called by {@link Minigame#onArenaChanged(Arena)}.
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void update(Arena arena) {
+
+        Bin[] teams = byArena.get(arena);
+        if (teams == null) {
+            teams = new Bin[] { new Bin(arena, Arena.BLUE_TEAM), new Bin(arena, Arena.RED_TEAM) };
+            byArena.put(arena, teams);
+        }
+
+        for (Bin bin : teams) {
+            unlink(bin);
+            bin.free = arena.isJoinable() ? arena.getFreeSlots(bin.team) : 0;
+            link(bin);
+        }
+
+        if (placing) {
+            dirty.add(arena);
+            return;
+        }
+
+        for (Bin bin : teams) {
+            fill(bin);
+        }
+
+    }
+
+    /**
+     * Forgets about an arena completely
+     * 
+     * @param arena
+     *            the arena
+     */
+    public void remove(Arena arena) {
+        Bin[] teams = byArena.remove(arena);
+        if (teams != null) {
+            for (Bin bin : teams) {
+                unlink(bin);
+            }
+        }
+    }
+
+    /**
+     * Places a party right away if there is room for it, otherwise queues it
+     * until there is
+     * 
+     * @param party
+     *            the party
+     * @return Whether or not the party was placed right away
+     */
+    public boolean place(Party party) {
+
+        dequeue(party);
+
+        List<User> members = party.getReadyMembers();
+        if (members.isEmpty()) {
+            return false;
+        }
+
+        Entry<Integer, Set<Bin>> entry = bins.ceilingEntry(members.size());
+        if (entry == null) {
+            enqueue(party, members.size());
+            return false;
+        }
+
+        put(entry.getValue().iterator().next(), members);
+        return true;
+
+    }
+
+    /**
+     * Takes a party out of the queue
+     * 
+     * @param party
+     *            the party
+     */
+    public void dequeue(Party party) {
+        if (party.queuedSize > 0) {
+            Deque<Party> queue = waiting.get(party.queuedSize);
+            if (queue != null && queue.remove(party) && queue.isEmpty()) {
+                waiting.remove(party.queuedSize);
+            }
+            party.queuedSize = 0;
+        }
+    }
+
+    /**
+     * Moves a queued party to the right queue after its size changed
+     * 
+     * @param party
+     *            the party
+     */
+    public void resized(Party party) {
+        if (party.isQueued()) {
+            place(party);
+        }
+    }
+
+    /**
+     * @return The number of parties waiting for room
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (Deque<Party> queue : waiting.values()) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * @return The size of the largest waiting party, or 0 if none are waiting
+     */
+    public int getLargestQueued() {
+        return waiting.isEmpty() ? 0 : waiting.lastKey();
+    }
+
+    private void enqueue(Party party, int size) {
+        waiting.computeIfAbsent(size, k -> new ArrayDeque<>()).add(party);
+        party.queuedSize = size;
+        party.broadcast("party-queued");
+    }
+
+    private void fill(Bin bin) {
+
+        // Biggest party that fits first, so the bin ends up as full as it can
+        Entry<Integer, Deque<Party>> entry;
+        while ((entry = waiting.floorEntry(bin.free)) != null) {
+
+            Deque<Party> queue = entry.getValue();
+            Party party = queue.poll();
+            if (queue.isEmpty()) {
+                waiting.remove(entry.getKey());
+            }
+            party.queuedSize = 0;
+
+            List<User> members = party.getReadyMembers();
+            if (members.isEmpty()) {
+                continue;
+            }
+            if (members.size() > bin.free) {
+                // Someone came back online since it was queued. It goes into a
+                // bigger queue than this bin can take, so it isn't polled again
+                // here.
+                enqueue(party, members.size());
+                continue;
+            }
+
+            put(bin, members);
+
+        }
+
+    }
+
+    private void put(Bin bin, List<User> members) {
+
+        placing = true;
+        try {
+            for (User user : members) {
+                user.send("joining", bin.arena.getName());
+                if (!user.join(bin.arena, bin.team)) {
+                    user.send("failed-to-join", bin.arena.getName());
+                }
+            }
+        } finally {
+            placing = false;
+        }
+
+        // Catch up on the updates that were skipped while placing
+        Iterator<Arena> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            Arena arena = iterator.next();
+            iterator.remove();
+            Bin[] teams = byArena.get(arena);
+            if (teams != null) {
+                for (Bin other : teams) {
+                    fill(other);
+                }
+            }
+            iterator = dirty.iterator();
+        }
+
+    }
+
+    private void link(Bin bin) {
+        if (bin.free > 0) {
+            bins.computeIfAbsent(bin.free, k -> new LinkedHashSet<>()).add(bin);
+        }
+    }
+
+    private void unlink(Bin bin) {
+        Set<Bin> set = bins.get(bin.free);
+        if (set != null && set.remove(bin) && set.isEmpty()) {
+            bins.remove(bin.free);
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import com.rayzr522.funpaintball.Config;
+
+/**
+ * Updates the ratings of everyone who played a match in one go. The roster is
+ * copied on the main thread, the new ratings are worked out on another thread,
+ * and then they are written back to the {@link UserData} on the main thread
+ * together with the wins and losses.<br>
+ * <br>
+ * Ratings are Elo ratings, where every player is rated against the average
+ * rating of the other team.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#onStop()
+ * 
+ */
+public class RatingBatch {
+
+    private final UUID[]   ids;
+    private final int[]    teams;
+    private final double[] ratings;
+    private final int      winner;
+    private final double   k;
+
+    /**
+     * Copies everything needed from the roster. Must be called on the main
+     * thread.
+     * 
+     * @param users
+     *            the players of the match
+     * @param winner
+     *            the team that won, or -1 for a tie
+     */
+    public RatingBatch(List<User> users, int winner) {
+
+        int size = users.size();
+        ids = new UUID[size];
+        teams = new int[size];
+        ratings = new double[size];
+        for (int i = 0; i < size; i++) {
+            User user = users.get(i);
+            ids[i] = user.getId();
+            teams[i] = user.getTeam();
+            ratings[i] = user.getRating();
+        }
+
+        this.winner = winner;
+        this.k = Config.RATING_K;
+
+    }
+
+    /**
+     * Works out the new ratings on another thread, then applies them on the
+     * main thread
+     * 
+     * @param plugin
+     *            the plugin to run the tasks for
+     * @param after
+     *            run on the main thread once the ratings were applied
+     */
+    public void submit(final JavaPlugin plugin, final Runnable after) {
+
+        new BukkitRunnable() {
+
+            @Override
+            public void run() {
+
+                compute();
+
+                if (!plugin.isEnabled()) {
+                    return;
+                }
+
+                new BukkitRunnable() {
+
+                    @Override
+                    public void run() {
+                        apply();
+                        after.run();
+                    }
+
+                }.runTask(plugin);
+
+            }
+
+        }.runTaskAsynchronously(plugin);
+
+    }
+
+    /**
+     * Replaces {@link RatingBatch#ratings} with the new ratings. Only touches
+     * the copied arrays, so this is safe to run on any thread.
+     */
+    private void compute() {
+
+        double[] sums = new double[2];
+        int[] counts = new int[2];
+        for (int i = 0; i < ids.length; i++) {
+            if (teams[i] == Arena.BLUE_TEAM || teams[i] == Arena.RED_TEAM) {
+                sums[teams[i]] += ratings[i];
+                counts[teams[i]]++;
+            }
+        }
+
+        // Nobody to be rated against
+        if (counts[0] == 0 || counts[1] == 0) {
+            return;
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+
+            int team = teams[i];
+            if (team != Arena.BLUE_TEAM && team != Arena.RED_TEAM) {
+                continue;
+            }
+
+            int other = 1 - team;
+            double opponent = sums[other] / counts[other];
+            double score = winner == -1 ? 0.5 : (team == winner ? 1.0 : 0.0);
+            ratings[i] += k * (score - expected(ratings[i], opponent));
+
+        }
+
+    }
+
+    private void apply() {
+
+        for (int i = 0; i < ids.length; i++) {
+
+            UserData data = UserData.find(ids[i]);
+            if (data == null) {
+                continue;
+            }
+
+            data.setRating(ratings[i]);
+            if (winner == -1 || teams[i] < 0) {
+                continue;
+            }
+            if (teams[i] == winner) {
+                data.incrWins();
+            } else {
+                data.incrLosses();
+            }
+
+        }
+
+    }
+
+    /**
+     * @param rating
+     *            the rating of a player
+     * @param opponent
+     *            the rating of their opponent
+     * @return The chance of the player winning, from 0 to 1
+     */
+    public static double expected(double rating, double opponent) {
+        return 1.0 / (1.0 + Math.pow(10, (opponent - rating) / 400.0));
+    }
+
+}
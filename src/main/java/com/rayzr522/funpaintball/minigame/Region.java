@@ -1,6 +1,9 @@
 
 package com.rayzr522.funpaintball.minigame;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.util.Vector;
@@ -10,12 +13,50 @@ import com.rayzr522.funpaintball.config.Serialized;
 
 public class Region implements ISerializable {
 
+    /**
+     * A box between the two corners of the region
+     */
+    public static final String CUBOID   = "cuboid";
+    /**
+     * A vertical cylinder (or elliptic cylinder) filling the box between the
+     * two corners of the region
+     */
+    public static final String CYLINDER = "cylinder";
+    /**
+     * A vertical prism with the outline given by the vertices of the region,
+     * spanning the height between the two corners of the region
+     */
+    public static final String POLYGON  = "polygon";
+
+    @Serialized
+    private World              world;
+    @Serialized
+    private Vector             min;
+    @Serialized
+    private Vector             max;
     @Serialized
-    private World  world;
+    private String             shape    = CUBOID;
+    /**
+     * The outline of a {@link Region#POLYGON} region, as {@code "x,z"} strings
+     */
     @Serialized
-    private Vector min;
+    private List<String>       vertices = new ArrayList<>();
+    /**
+     * The names of the {@link RegionFlag}s of this region. All flags are set
+     * by default.
+     */
     @Serialized
-    private Vector max;
+    private List<String>       flags    = allFlags();
+
+    // Cached copies of the bounds, see Region#evaluate()
+    private boolean            valid;
+    private double             minX, minY, minZ;
+    private double             maxX, maxY, maxZ;
+    private int                blockMinX, blockMinY, blockMinZ;
+    private int                blockMaxX, blockMaxY, blockMaxZ;
+    private RegionMask         mask;
+    private int                flagMask = RegionFlag.ALL;
+    private double[]           polygonX, polygonZ;
 
     /**
      * Only use this for creating partial or unfinished regions
@@ -37,6 +78,16 @@ public class Region implements ISerializable {
 
     @Override
     public void onDeserialize() {
+        evaluate();
+        evaluateFlags();
+    }
+
+    private static List<String> allFlags() {
+        List<String> names = new ArrayList<>();
+        for (RegionFlag flag : RegionFlag.values()) {
+            names.add(flag.name());
+        }
+        return names;
     }
 
     @Override
@@ -56,6 +107,7 @@ public class Region implements ISerializable {
      */
     public void setWorld(World world) {
         this.world = world;
+        evaluate();
     }
 
     /**
@@ -71,6 +123,7 @@ public class Region implements ISerializable {
      */
     public void setMin(Vector min) {
         this.min = min;
+        evaluate();
     }
 
     /**
@@ -86,6 +139,7 @@ public class Region implements ISerializable {
      */
     public void setMax(Vector max) {
         this.max = max;
+        evaluate();
     }
 
     /**
@@ -109,10 +163,128 @@ public class Region implements ISerializable {
     }
 
     /**
-     * Re-evaluate which point is the minimum and which point is the maximum
+     * @return the shape
+     * 
+     * @see Region#CUBOID
+     * @see Region#CYLINDER
+     * @see Region#POLYGON
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * @param shape
+     *            the shape to set
+     * @return Whether or not the shape was valid
+     * 
+     * @see Region#CUBOID
+     * @see Region#CYLINDER
+     * @see Region#POLYGON
+     */
+    public boolean setShape(String shape) {
+        if (!CUBOID.equals(shape) && !CYLINDER.equals(shape) && !POLYGON.equals(shape)) {
+            return false;
+        }
+        this.shape = shape;
+        evaluate();
+        return true;
+    }
+
+    /**
+     * Adds a vertex to the outline of a {@link Region#POLYGON} region
+     * 
+     * @param x
+     *            the X coordinate
+     * @param z
+     *            the Z coordinate
+     */
+    public void addVertex(double x, double z) {
+        vertices.add(x + "," + z);
+        evaluate();
+    }
+
+    /**
+     * Removes all vertices from the outline of this region
+     */
+    public void clearVertices() {
+        vertices.clear();
+        evaluate();
+    }
+
+    /**
+     * @return the vertices
+     */
+    public List<String> getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Get the flags of this region as a bitmask
+     * 
+     * @return The flags
+     * 
+     * @see RegionFlag#mask()
+     */
+    public int getFlags() {
+        return flagMask;
+    }
+
+    /**
+     * @param flag
+     *            the flag
+     * @return Whether or not the flag is set
+     */
+    public boolean hasFlag(RegionFlag flag) {
+        return (flagMask & flag.mask()) != 0;
+    }
+
+    /**
+     * @param flag
+     *            the flag to change
+     * @param value
+     *            whether to set or clear the flag
+     */
+    public void setFlag(RegionFlag flag, boolean value) {
+        flags.remove(flag.name());
+        if (value) {
+            flags.add(flag.name());
+        }
+        evaluateFlags();
+    }
+
+    private void evaluateFlags() {
+
+        flagMask = 0;
+        if (flags == null) {
+            flags = new ArrayList<>();
+            return;
+        }
+
+        for (String name : flags) {
+            RegionFlag flag = RegionFlag.get(name);
+            if (flag == null) {
+                System.err.println("Unknown region flag '" + name + "'");
+                continue;
+            }
+            flagMask |= flag.mask();
+        }
+
+    }
+
+    /**
+     * Re-evaluate which point is the minimum and which point is the maximum,
+     * and refresh the cached bounds used by {@link Region#inRegion(Location)}
+     * and {@link Region#contains(World, int, int, int)}. For shapes other than
+     * {@link Region#CUBOID} this also rasterises the shape into a
+     * {@link RegionMask}.
      */
     private void evaluate() {
 
+        valid = !(min == null || max == null || world == null);
+        mask = null;
+        polygonX = polygonZ = null;
+
         if (min == null || max == null) {
             return;
         }
@@ -123,6 +295,96 @@ public class Region implements ISerializable {
         min = Vector.getMinimum(oldMin, oldMax);
         max = Vector.getMaximum(oldMin, oldMax);
 
+        minX = min.getX();
+        minY = min.getY();
+        minZ = min.getZ();
+        maxX = max.getX();
+        maxY = max.getY();
+        maxZ = max.getZ();
+
+        blockMinX = (int) Math.floor(minX);
+        blockMinY = (int) Math.floor(minY);
+        blockMinZ = (int) Math.floor(minZ);
+        blockMaxX = (int) Math.floor(maxX);
+        blockMaxY = (int) Math.floor(maxY);
+        blockMaxZ = (int) Math.floor(maxZ);
+
+        if (CYLINDER.equals(shape)) {
+            evaluateCylinder();
+        } else if (POLYGON.equals(shape)) {
+            evaluatePolygon();
+        }
+
+    }
+
+    private void evaluateCylinder() {
+
+        final double centerX = (blockMinX + blockMaxX + 1) / 2.0;
+        final double centerZ = (blockMinZ + blockMaxZ + 1) / 2.0;
+        final double radiusX = (blockMaxX - blockMinX + 1) / 2.0;
+        final double radiusZ = (blockMaxZ - blockMinZ + 1) / 2.0;
+
+        mask = new RegionMask(blockMinX, blockMinY, blockMinZ, blockMaxX, blockMaxY, blockMaxZ, (x, z) -> {
+            double dx = (x + 0.5 - centerX) / radiusX;
+            double dz = (z + 0.5 - centerZ) / radiusZ;
+            return dx * dx + dz * dz <= 1.0;
+        });
+
+    }
+
+    private void evaluatePolygon() {
+
+        int count = vertices == null ? 0 : vertices.size();
+        final double[] xs = new double[count];
+        final double[] zs = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            String[] split = vertices.get(i).split(",");
+            try {
+                xs[i] = Double.parseDouble(split[0].trim());
+                zs[i] = Double.parseDouble(split[1].trim());
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                System.err.println("Invalid region vertex '" + vertices.get(i) + "'");
+                valid = false;
+                return;
+            }
+        }
+
+        if (count < 3) {
+            valid = false;
+            return;
+        }
+
+        // The outline replaces the horizontal bounds of the two corners
+        minX = maxX = xs[0];
+        minZ = maxZ = zs[0];
+        for (int i = 1; i < count; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+        blockMinX = (int) Math.floor(minX);
+        blockMinZ = (int) Math.floor(minZ);
+        blockMaxX = (int) Math.floor(maxX);
+        blockMaxZ = (int) Math.floor(maxZ);
+
+        polygonX = xs;
+        polygonZ = zs;
+
+        mask = new RegionMask(blockMinX, blockMinY, blockMinZ, blockMaxX, blockMaxY, blockMaxZ, (x, z) -> {
+            // Even-odd rule, tested at the center of the column
+            double px = x + 0.5;
+            double pz = z + 0.5;
+            boolean inside = false;
+            for (int i = 0, j = count - 1; i < count; j = i++) {
+                if ((zs[i] > pz) != (zs[j] > pz) && px < (xs[j] - xs[i]) * (pz - zs[i]) / (zs[j] - zs[i]) + xs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        });
+
     }
 
     /**
@@ -131,12 +393,12 @@ public class Region implements ISerializable {
      * @return
      */
     public boolean isValid() {
-        return !(min == null || max == null || world == null);
+        return valid;
     }
 
     public boolean inRegion(Location loc) {
 
-        if (!isValid()) {
+        if (!valid) {
             return false;
         }
         if (loc.getWorld() != world) {
@@ -145,8 +407,192 @@ public class Region implements ISerializable {
         double x = loc.getX();
         double y = loc.getY();
         double z = loc.getZ();
-        return x >= min.getX() && x <= max.getX() && y >= min.getY() && y <= max.getY() && z >= min.getZ() && z <= max.getZ();
+        if (!(x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ)) {
+            return false;
+        }
+        return mask == null || mask.contains(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+
+    }
+
+    /**
+     * Check whether a block is within this region. A block counts as inside if
+     * it is one of the blocks containing the corners of the region, or any
+     * block between them. This does not allocate anything, so it is the
+     * preferred check for block events.
+     * 
+     * @param world
+     *            the world of the block
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return Whether or not the block is within this region
+     */
+    public boolean contains(World world, int x, int y, int z) {
+
+        if (!valid || world != this.world) {
+            return false;
+        }
+        if (!(x >= blockMinX && x <= blockMaxX && y >= blockMinY && y <= blockMaxY && z >= blockMinZ && z <= blockMaxZ)) {
+            return false;
+        }
+        return mask == null || mask.contains(x, y, z);
+
+    }
+
+    /**
+     * Check whether any block of this region is within the given chunk
+     * 
+     * @param chunkX
+     *            the chunk X coordinate
+     * @param chunkZ
+     *            the chunk Z coordinate
+     * @return Whether or not this region overlaps that chunk
+     */
+    public boolean intersectsChunk(int chunkX, int chunkZ) {
+
+        if (!valid) {
+            return false;
+        }
+        if (chunkX < blockMinX >> 4 || chunkX > blockMaxX >> 4 || chunkZ < blockMinZ >> 4 || chunkZ > blockMaxZ >> 4) {
+            return false;
+        }
+        return mask == null || mask.intersectsChunk(chunkX, chunkZ);
+
+    }
+
+    /**
+     * Get the edges of this region, for drawing its outline. Curved edges are
+     * split up into straight segments.
+     * 
+     * @return A list of segments in the format
+     *         <code>{x1, y1, z1, x2, y2, z2}</code>, or an empty list if this
+     *         region is not valid
+     */
+    public List<double[]> getOutline() {
+
+        List<double[]> outline = new ArrayList<>();
+        if (!valid) {
+            return outline;
+        }
+
+        // Outlines follow the block grid, like Region#contains
+        double bottom = blockMinY;
+        double top = blockMaxY + 1;
+
+        double[] xs;
+        double[] zs;
+
+        if (polygonX != null) {
+            xs = polygonX;
+            zs = polygonZ;
+        } else if (CYLINDER.equals(shape)) {
+            int points = 32;
+            double centerX = (blockMinX + blockMaxX + 1) / 2.0;
+            double centerZ = (blockMinZ + blockMaxZ + 1) / 2.0;
+            double radiusX = (blockMaxX - blockMinX + 1) / 2.0;
+            double radiusZ = (blockMaxZ - blockMinZ + 1) / 2.0;
+            xs = new double[points];
+            zs = new double[points];
+            for (int i = 0; i < points; i++) {
+                double angle = Math.PI * 2 * i / points;
+                xs[i] = centerX + Math.cos(angle) * radiusX;
+                zs[i] = centerZ + Math.sin(angle) * radiusZ;
+            }
+        } else {
+            xs = new double[] { blockMinX, blockMaxX + 1, blockMaxX + 1, blockMinX };
+            zs = new double[] { blockMinZ, blockMinZ, blockMaxZ + 1, blockMaxZ + 1 };
+        }
+
+        // Only draw a few of the vertical edges of round shapes
+        int verticalStep = Math.max(1, xs.length / 4);
+
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            outline.add(new double[] { xs[j], bottom, zs[j], xs[i], bottom, zs[i] });
+            outline.add(new double[] { xs[j], top, zs[j], xs[i], top, zs[i] });
+            if (i % verticalStep == 0) {
+                outline.add(new double[] { xs[i], bottom, zs[i], xs[i], top, zs[i] });
+            }
+        }
+
+        return outline;
+
+    }
 
+    /**
+     * Makes a copy of this region, moved by the given offset
+     * 
+     * @param offset
+     *            the offset
+     * @return The copy
+     */
+    public Region translate(Vector offset) {
+
+        Region copy = new Region();
+        copy.world = world;
+        copy.min = min == null ? null : min.clone().add(offset);
+        copy.max = max == null ? null : max.clone().add(offset);
+        copy.shape = shape;
+        copy.flags = new ArrayList<>(flags);
+
+        for (String vertex : vertices) {
+            String[] split = vertex.split(",");
+            try {
+                copy.vertices.add((Double.parseDouble(split[0].trim()) + offset.getX()) + "," + (Double.parseDouble(split[1].trim()) + offset.getZ()));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // Keep it, so the copy is just as invalid as this region
+                copy.vertices.add(vertex);
+            }
+        }
+
+        copy.evaluate();
+        copy.evaluateFlags();
+        return copy;
+
+    }
+
+    /**
+     * @return the lowest block X coordinate within this region
+     */
+    public int getBlockMinX() {
+        return blockMinX;
+    }
+
+    /**
+     * @return the lowest block Y coordinate within this region
+     */
+    public int getBlockMinY() {
+        return blockMinY;
+    }
+
+    /**
+     * @return the lowest block Z coordinate within this region
+     */
+    public int getBlockMinZ() {
+        return blockMinZ;
+    }
+
+    /**
+     * @return the highest block X coordinate within this region
+     */
+    public int getBlockMaxX() {
+        return blockMaxX;
+    }
+
+    /**
+     * @return the highest block Y coordinate within this region
+     */
+    public int getBlockMaxY() {
+        return blockMaxY;
+    }
+
+    /**
+     * @return the highest block Z coordinate within this region
+     */
+    public int getBlockMaxZ() {
+        return blockMaxZ;
     }
 
 }
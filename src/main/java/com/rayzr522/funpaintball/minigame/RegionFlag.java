@@ -0,0 +1,75 @@
+package com.rayzr522.funpaintball.minigame;
+
+/**
+ * Environmental changes that a {@link Region} can protect against. Each flag
+ * has its own bit, so the flags of a region can be stored and combined as a
+ * single {@code int} bitmask.
+ * 
+ * @author Rayzr
+ * 
+ * @see Region#getFlags()
+ * @see ArenaIndex#getFlags(org.bukkit.World, int, int, int)
+ *
+ */
+public enum RegionFlag {
+
+    /**
+     * Stops water from flowing into the region
+     */
+    WATER_FLOW,
+    /**
+     * Stops lava from flowing into the region
+     */
+    LAVA_FLOW,
+    /**
+     * Stops pistons from moving blocks in the region
+     */
+    PISTONS,
+    /**
+     * Stops leaves from decaying in the region
+     */
+    LEAF_DECAY,
+    /**
+     * Stops fire from spreading or being lit in the region
+     */
+    FIRE_SPREAD,
+    /**
+     * Stops grass, mycelium, vines, mushrooms, etc. from spreading in the
+     * region
+     */
+    BLOCK_SPREAD,
+    /**
+     * Stops entities (endermen, falling blocks, etc.) from changing blocks in
+     * the region
+     */
+    ENTITY_CHANGE;
+
+    /**
+     * A bitmask with every flag set
+     */
+    public static final int ALL = (1 << values().length) - 1;
+
+    /**
+     * @return The bit of this flag
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Get a flag by its name
+     * 
+     * @param name
+     *            the name of the flag (non case-specific)
+     * @return The flag, or {@code null} if there is no flag with that name
+     */
+    public static RegionFlag get(String name) {
+        for (RegionFlag flag : values()) {
+            if (flag.name().equalsIgnoreCase(name)) {
+                return flag;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.rayzr522.funpaintball.minigame;
+
+/**
+ * A precomputed occupancy bitmap for non-cuboid {@link Region}s. The bounding
+ * box of the region is split into 16x16x16 sections, each of which is stored as
+ * a 4096 bit set. Sections which are completely empty are stored as
+ * {@code null} and sections which are completely full all share the same bit
+ * set, so containment is a single bit test no matter how complex the shape is.
+ * 
+ * @author Rayzr
+ * 
+ */
+public class RegionMask {
+
+    /**
+     * Decides which block columns belong to a shape
+     */
+    public interface ColumnTest {
+
+        /**
+         * @param x
+         *            the block X coordinate
+         * @param z
+         *            the block Z coordinate
+         * @return Whether or not the column is part of the shape
+         */
+        public boolean contains(int x, int z);
+
+    }
+
+    private static final int    WORDS = 4096 / 64;
+    private static final long[] FULL  = new long[WORDS];
+
+    static {
+        for (int i = 0; i < WORDS; i++) {
+            FULL[i] = -1L;
+        }
+    }
+
+    private final int           originX, originY, originZ;
+    private final int           sizeX, sizeY, sizeZ;
+    private final long[][]      sections;
+
+    /**
+     * Rasterises a shape into a mask. Every column inside the given bounds
+     * which passes the {@link ColumnTest} is filled from {@code minY} to
+     * {@code maxY}.
+     * 
+     * @param minX
+     *            the lowest block X coordinate
+     * @param minY
+     *            the lowest block Y coordinate
+     * @param minZ
+     *            the lowest block Z coordinate
+     * @param maxX
+     *            the highest block X coordinate
+     * @param maxY
+     *            the highest block Y coordinate
+     * @param maxZ
+     *            the highest block Z coordinate
+     * @param test
+     *            the test deciding which columns are filled
+     */
+    public RegionMask(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, ColumnTest test) {
+
+        originX = minX >> 4;
+        originY = minY >> 4;
+        originZ = minZ >> 4;
+        sizeX = (maxX >> 4) - originX + 1;
+        sizeY = (maxY >> 4) - originY + 1;
+        sizeZ = (maxZ >> 4) - originZ + 1;
+        sections = new long[sizeX * sizeY * sizeZ][];
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                if (test.contains(x, z)) {
+                    fill(x, minY, maxY, z);
+                }
+            }
+        }
+
+        // Share a single bit set between all full sections
+        for (int i = 0; i < sections.length; i++) {
+            if (isFull(sections[i])) {
+                sections[i] = FULL;
+            }
+        }
+
+    }
+
+    private void fill(int x, int minY, int maxY, int z) {
+
+        for (int y = minY; y <= maxY; y++) {
+
+            int index = index(x >> 4, y >> 4, z >> 4);
+            long[] bits = sections[index];
+            if (bits == null) {
+                bits = sections[index] = new long[WORDS];
+            }
+
+            int bit = bit(x, y, z);
+            bits[bit >>> 6] |= 1L << bit;
+
+        }
+
+    }
+
+    private static boolean isFull(long[] bits) {
+
+        if (bits == null) {
+            return false;
+        }
+        for (long word : bits) {
+            if (word != -1L) {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+    private int index(int sectionX, int sectionY, int sectionZ) {
+        return ((sectionX - originX) * sizeY + (sectionY - originY)) * sizeZ + (sectionZ - originZ);
+    }
+
+    private static int bit(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * Check whether a block is set in this mask
+     * 
+     * @param x
+     *            the block X coordinate
+     * @param y
+     *            the block Y coordinate
+     * @param z
+     *            the block Z coordinate
+     * @return Whether or not the block is part of the shape
+     */
+    public boolean contains(int x, int y, int z) {
+
+        int sectionX = (x >> 4) - originX;
+        int sectionY = (y >> 4) - originY;
+        int sectionZ = (z >> 4) - originZ;
+        if (sectionX < 0 || sectionY < 0 || sectionZ < 0 || sectionX >= sizeX || sectionY >= sizeY || sectionZ >= sizeZ) {
+            return false;
+        }
+
+        long[] bits = sections[(sectionX * sizeY + sectionY) * sizeZ + sectionZ];
+        if (bits == null) {
+            return false;
+        }
+
+        int bit = bit(x, y, z);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+
+    }
+
+    /**
+     * Check whether any block in the given chunk is set in this mask
+     * 
+     * @param chunkX
+     *            the chunk X coordinate
+     * @param chunkZ
+     *            the chunk Z coordinate
+     * @return Whether or not the shape overlaps that chunk
+     */
+    public boolean intersectsChunk(int chunkX, int chunkZ) {
+
+        int sectionX = chunkX - originX;
+        int sectionZ = chunkZ - originZ;
+        if (sectionX < 0 || sectionZ < 0 || sectionX >= sizeX || sectionZ >= sizeZ) {
+            return false;
+        }
+
+        for (int sectionY = 0; sectionY < sizeY; sectionY++) {
+            if (sections[(sectionX * sizeY + sectionY) * sizeZ + sectionZ] != null) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * A queue of players waiting in the death box, ordered by the tick they are
+ * due to respawn on
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#sendToDeathBox(User)
+ *
+ */
+public class RespawnQueue {
+
+    private static class Entry implements Comparable<Entry> {
+
+        private final User user;
+        private final long due;
+
+        private Entry(User user, long due) {
+            this.user = user;
+            this.due = due;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Long.compare(due, o.due);
+        }
+
+    }
+
+    private PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    /**
+     * Adds a player to the queue
+     * 
+     * @param user
+     *            the player
+     * @param due
+     *            the tick they should respawn on
+     */
+    public void add(User user, long due) {
+        queue.add(new Entry(user, due));
+    }
+
+    /**
+     * Respawns players whose respawn is due, oldest first
+     * 
+     * @param now
+     *            the current tick
+     * @param max
+     *            the maximum number of players to respawn
+     * @param respawn
+     *            the action respawning a player
+     * @return The number of players that were respawned
+     */
+    public int drain(long now, int max, Consumer<User> respawn) {
+
+        int count = 0;
+        while (count < max && !queue.isEmpty() && queue.peek().due <= now) {
+            respawn.accept(queue.poll().user);
+            count++;
+        }
+        return count;
+
+    }
+
+    /**
+     * @return Whether or not nobody is waiting to respawn
+     */
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Removes everyone from the queue
+     */
+    public void clear() {
+        queue.clear();
+    }
+
+}
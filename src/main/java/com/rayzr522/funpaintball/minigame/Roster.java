@@ -0,0 +1,252 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * The players of an arena. Every player gets a slot number which stays the
+ * same for as long as they are in the arena, and each team is kept as a dense
+ * array of slots, so joining, leaving, checking if someone is in the arena and
+ * going through a team are all O(1) per player.<br>
+ * <br>
+ * Slots of players who left are reused, so the slot numbers stay small and
+ * can be used to index other per-player arrays, see {@link HudTicker}.
+ * 
+ * @author Rayzr
+ * 
+ * @see Arena#join(User, int)
+ * 
+ */
+public class Roster implements Iterable<User> {
+
+    /**
+     * The number of teams
+     */
+    public static final int    TEAMS     = 2;
+
+    private Map<UUID, Integer> index     = new HashMap<>();
+
+    // Indexed by slot
+    private User[]             users     = new User[8];
+    private int[]              teamOf    = new int[8];
+    private int[]              position  = new int[8];
+
+    // Slots of each team, packed at the start of the array
+    private int[][]            teams     = new int[TEAMS][8];
+    private int[]              teamSizes = new int[TEAMS];
+
+    private int[]              free      = new int[8];
+    private int                freeCount;
+    private int                used;
+
+    /**
+     * Adds a player to a team
+     * 
+     * @param user
+     *            the player
+     * @param team
+     *            the team, between 0 and {@link Roster#TEAMS}
+     * @return Whether or not they were added. Will return false if they were
+     *         already on the roster.
+     */
+    public boolean add(User user, int team) {
+
+        if (index.containsKey(user.getId())) {
+            return false;
+        }
+
+        int slot = freeCount > 0 ? free[--freeCount] : newSlot();
+        users[slot] = user;
+        teamOf[slot] = team;
+
+        int[] members = teams[team];
+        if (teamSizes[team] == members.length) {
+            members = teams[team] = Arrays.copyOf(members, members.length * 2);
+        }
+        position[slot] = teamSizes[team];
+        members[teamSizes[team]++] = slot;
+
+        index.put(user.getId(), slot);
+        return true;
+
+    }
+
+    private int newSlot() {
+
+        if (used == users.length) {
+            int size = used * 2;
+            users = Arrays.copyOf(users, size);
+            teamOf = Arrays.copyOf(teamOf, size);
+            position = Arrays.copyOf(position, size);
+            free = Arrays.copyOf(free, size);
+        }
+        return used++;
+
+    }
+
+    /**
+     * Removes a player
+     * 
+     * @param user
+     *            the player
+     * @return Whether or not they were on the roster
+     */
+    public boolean remove(User user) {
+
+        Integer slot = index.remove(user.getId());
+        if (slot == null) {
+            return false;
+        }
+
+        // Move the last player of the team into the gap
+        int team = teamOf[slot];
+        int[] members = teams[team];
+        int last = members[--teamSizes[team]];
+        members[position[slot]] = last;
+        position[last] = position[slot];
+
+        users[slot] = null;
+        free[freeCount++] = slot;
+        return true;
+
+    }
+
+    /**
+     * @param user
+     *            the player
+     * @return Whether or not they are on the roster
+     */
+    public boolean contains(User user) {
+        return index.containsKey(user.getId());
+    }
+
+    /**
+     * @param id
+     *            the UUID of a player
+     * @return The player, or {@code null} if they aren't on the roster
+     */
+    public User get(UUID id) {
+        Integer slot = index.get(id);
+        return slot == null ? null : users[slot];
+    }
+
+    /**
+     * @param user
+     *            the player
+     * @return The slot of the player, or -1 if they aren't on the roster
+     */
+    public int getSlot(User user) {
+        Integer slot = index.get(user.getId());
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param user
+     *            the player
+     * @return The team of the player, or -1 if they aren't on the roster
+     */
+    public int getTeam(User user) {
+        Integer slot = index.get(user.getId());
+        return slot == null ? -1 : teamOf[slot];
+    }
+
+    /**
+     * Get a player on a team. Together with {@link Roster#size(int)} this is
+     * how a team is gone through:
+     * 
+     * <pre>
+     * for (int i = 0; i &lt; roster.size(team); i++) {
+     *     User user = roster.get(team, i);
+     * }
+     * </pre>
+     * 
+     * @param team
+     *            the team
+     * @param i
+     *            the index on the team, below {@link Roster#size(int)}
+     * @return The player
+     */
+    public User get(int team, int i) {
+        return users[teams[team][i]];
+    }
+
+    /**
+     * @return The number of players
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @param team
+     *            the team
+     * @return The number of players on that team
+     */
+    public int size(int team) {
+        return teamSizes[team];
+    }
+
+    /**
+     * @return Whether or not there are no players
+     */
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    /**
+     * @return One more than the highest slot in use. Arrays indexed by slot
+     *         must be at least this long.
+     */
+    public int capacity() {
+        return used;
+    }
+
+    /**
+     * @return A copy of the roster as a list, team by team
+     */
+    public List<User> toList() {
+        List<User> list = new ArrayList<>(size());
+        for (User user : this) {
+            list.add(user);
+        }
+        return list;
+    }
+
+    /**
+     * Goes through every team in order. Players must not join or leave while
+     * this is in use.
+     */
+    @Override
+    public Iterator<User> iterator() {
+        return new Iterator<User>() {
+
+            private int team;
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                while (team < TEAMS && i >= teamSizes[team]) {
+                    team++;
+                    i = 0;
+                }
+                return team < TEAMS;
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return users[teams[team][i++]];
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.rayzr522.funpaintball.minigame;
+
+import org.bukkit.World;
+
+import com.rayzr522.funpaintball.Config;
+
+/**
+ * Team deathmatch. A team scores a point for every player of the other team
+ * who dies.
+ * 
+ * @author Rayzr
+ * 
+ */
+public class TeamDeathmatchMode implements MatchMode {
+
+    public static final String NAME = "tdm";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isTeamBased() {
+        return true;
+    }
+
+    @Override
+    public void onStart(Arena arena) {
+    }
+
+    @Override
+    public void tick(Arena arena, long deadline) {
+    }
+
+    @Override
+    public void onDeath(Arena arena, User user, User killer) {
+        int team;
+        switch (user.getTeam()) {
+            case Arena.BLUE_TEAM:
+                team = Arena.RED_TEAM;
+                break;
+            case Arena.RED_TEAM:
+                team = Arena.BLUE_TEAM;
+                break;
+            default:
+                return;
+        }
+
+        int score = arena.addScore(team, 1);
+        arena.anouncePoint(team);
+        arena.checkScoreLimit(score);
+    }
+
+    @Override
+    public void onMove(Arena arena, User user, World world, int x, int y, int z) {
+    }
+
+    @Override
+    public void onLeave(Arena arena, User user) {
+    }
+
+    @Override
+    public int onStop(Arena arena) {
+        return announceTeams(arena);
+    }
+
+    /**
+     * Announces which team has the higher score
+     * 
+     * @param arena
+     *            the arena
+     * @return The team that won, or -1 for a tie
+     */
+    static int announceTeams(Arena arena) {
+
+        int blue = arena.getScoreBlue();
+        int red = arena.getScoreRed();
+
+        if (blue == red) {
+            arena.broadcast("tie", blue, red);
+            return -1;
+        }
+        if (blue > red) {
+            arena.broadcast("team-won", Config.TEAM_BLUE, blue, red);
+            return Arena.BLUE_TEAM;
+        }
+        arena.broadcast("team-won", Config.TEAM_RED, red, blue);
+        return Arena.RED_TEAM;
+
+    }
+
+}
@@ -0,0 +1,262 @@
+package com.rayzr522.funpaintball.minigame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import org.bukkit.Location;
+
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.util.TimingWheel;
+
+/**
+ * Teleports groups of players over several ticks instead of all at once, so a
+ * full arena starting or stopping doesn't load a pile of chunks in one tick. At
+ * most {@link Config#TELEPORTS_PER_TICK} players are moved each tick, and
+ * players going to the same chunk are always moved together.
+ * 
+ * @author Rayzr
+ * 
+ * @see TeleportService#submit(Batch)
+ * 
+ */
+public class TeleportService {
+
+    /**
+     * A group of teleports that are submitted together
+     */
+    public static class Batch {
+
+        private List<User>     users        = new ArrayList<>();
+        private List<Location> destinations = new ArrayList<>();
+        private List<Long>     chunks       = new ArrayList<>();
+        private Consumer<User> after;
+        private Consumer<User> skipped;
+        private IntConsumer    done;
+
+        private int            next;
+        private long           startTick;
+
+        /**
+         * Adds a teleport to this batch
+         * 
+         * @param user
+         *            the player
+         * @param destination
+         *            where to send them
+         * @return This batch
+         */
+        public Batch add(User user, Location destination) {
+            users.add(user);
+            destinations.add(destination);
+            return this;
+        }
+
+        /**
+         * @param after
+         *            called for each player right after they were teleported
+         * @return This batch
+         */
+        public Batch after(Consumer<User> after) {
+            this.after = after;
+            return this;
+        }
+
+        /**
+         * @param skipped
+         *            called for each player who went offline before their
+         *            turn, instead of teleporting them
+         * @return This batch
+         */
+        public Batch skipped(Consumer<User> skipped) {
+            this.skipped = skipped;
+            return this;
+        }
+
+        /**
+         * @param done
+         *            called once every player was teleported, with the number
+         *            of ticks it took
+         * @return This batch
+         */
+        public Batch done(IntConsumer done) {
+            this.done = done;
+            return this;
+        }
+
+        /**
+         * @return The number of teleports in this batch
+         */
+        public int size() {
+            return users.size();
+        }
+
+        /**
+         * Orders the teleports so that players going to the same chunk are
+         * next to each other
+         */
+        private void sort() {
+
+            int size = users.size();
+            Integer[] order = new Integer[size];
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+                Location loc = destinations.get(i);
+                keys[i] = ArenaIndex.chunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+            }
+
+            // Worlds are compared by name first, so two worlds never mix
+            Arrays.sort(order, Comparator.<Integer, String> comparing(i -> destinations.get(i).getWorld().getName()).thenComparingLong(i -> keys[i]));
+
+            List<User> sortedUsers = new ArrayList<>(size);
+            List<Location> sortedDestinations = new ArrayList<>(size);
+            for (int i : order) {
+                sortedUsers.add(users.get(i));
+                sortedDestinations.add(destinations.get(i));
+                chunks.add(keys[i]);
+            }
+            users = sortedUsers;
+            destinations = sortedDestinations;
+
+        }
+
+        private boolean sameChunk(int a, int b) {
+            return chunks.get(a).longValue() == chunks.get(b).longValue() && destinations.get(a).getWorld() == destinations.get(b).getWorld();
+        }
+
+    }
+
+    private TimingWheel      scheduler;
+    private Deque<Batch>     batches = new ArrayDeque<>();
+
+    private long             tick    = -1;
+    private int              used;
+    private TimingWheel.Task task;
+
+    public TeleportService(TimingWheel scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues a batch of teleports. The first teleports may happen right away
+     * if this tick's budget isn't used up yet.
+     * 
+     * @param batch
+     *            the batch
+     */
+    public void submit(Batch batch) {
+
+        if (batch.size() == 0) {
+            if (batch.done != null) {
+                batch.done.accept(0);
+            }
+            return;
+        }
+
+        batch.sort();
+        batch.startTick = scheduler.getTick();
+        batches.add(batch);
+
+        process();
+
+        if (!batches.isEmpty() && task == null) {
+            task = scheduler.every(null, this::process, 1L, 1L);
+        }
+
+    }
+
+    /**
+     * Teleports everything that is still queued right away, ignoring the
+     * budget. Used when the plugin is being disabled.
+     */
+    public void flush() {
+
+        while (!batches.isEmpty()) {
+            Batch batch = batches.poll();
+            while (batch.next < batch.size()) {
+                teleport(batch, batch.next++);
+            }
+            if (batch.done != null) {
+                batch.done.accept((int) (scheduler.getTick() - batch.startTick + 1));
+            }
+        }
+
+    }
+
+    private void process() {
+
+        long now = scheduler.getTick();
+        if (now != tick) {
+            tick = now;
+            used = 0;
+        }
+
+        while (!batches.isEmpty() && used < Config.TELEPORTS_PER_TICK) {
+
+            Batch batch = batches.peek();
+            if (batch.next >= batch.size()) {
+                // Nothing left to move, so it can't be indexed
+                batches.poll();
+                if (batch.done != null) {
+                    batch.done.accept((int) (now - batch.startTick + 1));
+                }
+                continue;
+            }
+
+            // Move a whole chunk group at once, even if it goes over budget
+            int start = batch.next;
+            int end = start + 1;
+            while (end < batch.size() && batch.sameChunk(start, end)) {
+                end++;
+            }
+
+            if (used > 0 && used + (end - start) > Config.TELEPORTS_PER_TICK) {
+                break;
+            }
+
+            for (int i = start; i < end; i++) {
+                teleport(batch, i);
+            }
+            used += end - start;
+            batch.next = end;
+
+            if (batch.next >= batch.size()) {
+                batches.poll();
+                if (batch.done != null) {
+                    batch.done.accept((int) (now - batch.startTick + 1));
+                }
+            }
+
+        }
+
+        if (batches.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+
+    }
+
+    private void teleport(Batch batch, int index) {
+
+        User user = batch.users.get(index);
+        if (!user.getPlayer().isOnline()) {
+            if (batch.skipped != null) {
+                batch.skipped.accept(user);
+            }
+            return;
+        }
+
+        user.teleport(batch.destinations.get(index));
+        if (batch.after != null) {
+            batch.after.accept(user);
+        }
+
+    }
+
+}
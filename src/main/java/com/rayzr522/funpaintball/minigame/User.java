@@ -36,12 +36,23 @@ public class User {
      * @return Whether or not the user was able to join
      */
     public boolean join(Arena arena) {
+        return join(arena, -1);
+    }
+
+    /**
+     * Attempts to join a team of an arena
+     * 
+     * @param arena
+     * @param team the team, or -1 to let the arena pick one
+     * @return Whether or not the user was able to join
+     */
+    public boolean join(Arena arena, int team) {
 
         if (data.getCurrentArena() != null) {
             return false;
         }
 
-        if (!arena.join(this)) {
+        if (!arena.join(this, team)) {
             return false;
         }
 
@@ -207,6 +218,14 @@ public class User {
         return data.incrLosses();
     }
 
+    /**
+     * @return
+     * @see com.rayzr522.funpaintball.minigame.UserData#getRating()
+     */
+    public double getRating() {
+        return data.getRating();
+    }
+
     /**
      * @return the currentArena
      */
@@ -221,6 +240,22 @@ public class User {
         data.setCurrentArena(currentArena);
     }
 
+    /**
+     * @param currentRegion the currentRegion to set
+     * @see com.rayzr522.funpaintball.minigame.UserData#setCurrentRegion(Region)
+     */
+    public void setCurrentRegion(Region currentRegion) {
+        data.setCurrentRegion(currentRegion);
+    }
+
+    /**
+     * @param pendingExit where to send the player when they join next
+     * @see com.rayzr522.funpaintball.minigame.UserData#setPendingExit(Location)
+     */
+    public void setPendingExit(Location pendingExit) {
+        data.setPendingExit(pendingExit);
+    }
+
     /**
      * @param player the player to set
      */
@@ -259,6 +294,12 @@ public class User {
         }
     }
 
+    @Override
+    public int hashCode() {
+        // Equal players have the same UUID
+        return player.getUniqueId().hashCode();
+    }
+
     public void setTeam(int team) {
         data.setTeam(team);
     }
@@ -4,10 +4,14 @@ package com.rayzr522.funpaintball.minigame;
 import java.util.HashMap;
 import java.util.UUID;
 
+import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 
+import com.rayzr522.funpaintball.Config;
+import com.rayzr522.funpaintball.util.ConfigUtils;
+
 /**
  * A class for storing various statistics about the user
  * 
@@ -53,13 +57,27 @@ public class UserData {
 
     }
 
+    /**
+     * Get the data of a player without creating it if there is none
+     * 
+     * @param id
+     *            the UUID of the player
+     * @return The data, or {@code null} if there is no data for that player
+     */
+    public static UserData find(UUID id) {
+        return players.get(id);
+    }
+
     private UUID       id;
     private int        wins   = 0;
     private int        losses = 0;
+    private double     rating = Config.RATING_START;
 
     private int        team   = -1;
     private Arena      currentArena;
+    private Region     currentRegion;
     private PlayerData data;
+    private Location   pendingExit;
 
     public UserData(User user) {
         id = user.getId();
@@ -75,12 +93,22 @@ public class UserData {
         this.id = id;
         this.wins = section.getInt("wins");
         this.losses = section.getInt("losses");
+        this.rating = section.getDouble("rating", Config.RATING_START);
+        if (section.isString("pending-exit")) {
+            this.pendingExit = ConfigUtils.location(section.getString("pending-exit"));
+        }
     }
 
     private void save(ConfigurationSection section) {
 
         section.set("wins", wins);
         section.set("losses", losses);
+        section.set("rating", rating);
+        // Set when they were dropped from an arena while offline, e.g. by a
+        // shutdown
+        if (pendingExit != null) {
+            section.set("pending-exit", ConfigUtils.toString(pendingExit));
+        }
 
     }
 
@@ -104,7 +132,7 @@ public class UserData {
      * @return the wins
      */
     public int incrWins() {
-        return losses++;
+        return wins++;
     }
 
     /**
@@ -130,6 +158,22 @@ public class UserData {
         return losses++;
     }
 
+    /**
+     * @return the rating
+     * 
+     * @see RatingBatch
+     */
+    public double getRating() {
+        return rating;
+    }
+
+    /**
+     * @param rating the rating to set
+     */
+    public void setRating(double rating) {
+        this.rating = rating;
+    }
+
     /**
      * @return the id
      */
@@ -149,6 +193,24 @@ public class UserData {
      */
     public void setCurrentArena(Arena currentArena) {
         this.currentArena = currentArena;
+        this.currentRegion = null;
+    }
+
+    /**
+     * Get the region of the current arena the player was last seen in. This is
+     * only a cache for boundary checks, and may be {@code null}.
+     * 
+     * @return the currentRegion
+     */
+    public Region getCurrentRegion() {
+        return currentRegion;
+    }
+
+    /**
+     * @param currentRegion the currentRegion to set
+     */
+    public void setCurrentRegion(Region currentRegion) {
+        this.currentRegion = currentRegion;
     }
 
     public int getTeam() {
@@ -159,6 +221,23 @@ public class UserData {
         return this.team = team;
     }
 
+    /**
+     * Get where the player should be sent when they join next. This is set
+     * when they were removed from an arena while offline.
+     * 
+     * @return the pendingExit, or {@code null}
+     */
+    public Location getPendingExit() {
+        return pendingExit;
+    }
+
+    /**
+     * @param pendingExit the pendingExit to set
+     */
+    public void setPendingExit(Location pendingExit) {
+        this.pendingExit = pendingExit;
+    }
+
     /**
      * @param player the player to store the data of
      */
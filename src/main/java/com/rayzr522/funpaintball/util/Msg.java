@@ -124,9 +124,7 @@ public class Msg {
      */
     public static void send(Player p, String key, Object... objects) {
 
-        String msg[] = get(key, objects).split("\n");
-
-        p.sendMessage(msg);
+        p.sendMessage(lines(key, objects));
 
     }
 
@@ -139,10 +137,27 @@ public class Msg {
      */
     public static void send(CommandSender sender, String key, Object... objects) {
 
-        String msg[] = get(key, objects).split("\n");
+        sender.sendMessage(lines(key, objects));
 
-        sender.sendMessage(msg);
+    }
 
+    /**
+     * Get the message for the given key split into lines, ready to be passed to
+     * {@link CommandSender#sendMessage(String[])}. When sending the same
+     * message to many players, call this once and send the result to each of
+     * them instead of calling {@link Msg#send(Player, String, Object...)} for
+     * each player.
+     * 
+     * @param key
+     *            the message key
+     * @param objects
+     *            the objects to replace with
+     * @return The lines of the message
+     * 
+     * @see Msg#get(String, Object...)
+     */
+    public static String[] lines(String key, Object... objects) {
+        return get(key, objects).split("\n");
     }
 
     /**
@@ -162,6 +177,15 @@ public class Msg {
         return out;
     }
 
+    /**
+     * @param key
+     *            the message key
+     * @return Whether or not there is a message with that key
+     */
+    public static boolean has(String key) {
+        return messages.containsKey(key);
+    }
+
     /**
      * Get the message for the given key. This translates color codes
      * automatically.
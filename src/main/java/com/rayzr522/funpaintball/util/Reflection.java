@@ -2,6 +2,7 @@
 package com.rayzr522.funpaintball.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -13,16 +14,19 @@ import org.bukkit.entity.Player;
 
 public class Reflection {
 
-    private static String   VERSION;
+    private static String         VERSION;
 
-    private static Class<?> CRAFT_PLAYER;
-    private static Class<?> ENTITY_PLAYER;
-    private static Class<?> PLAYER_CONNECTION;
+    private static Class<?>       CRAFT_PLAYER;
+    private static Class<?>       ENTITY_PLAYER;
+    private static Class<?>       PLAYER_CONNECTION;
 
-    private static Method   GET_HANDLE;
-    private static Method   SEND_PACKET;
+    private static Method         GET_HANDLE;
+    private static Method         SEND_PACKET;
 
-    private static Field    F_PLAYER_CONNECTION;
+    private static Field          F_PLAYER_CONNECTION;
+
+    private static Constructor<?> CHAT_COMPONENT_TEXT;
+    private static Constructor<?> PACKET_PLAY_OUT_CHAT;
 
     static {
 
@@ -44,6 +48,18 @@ public class Reflection {
 
         }
 
+        try {
+
+            CHAT_COMPONENT_TEXT = getNMS("ChatComponentText").getConstructor(String.class);
+            PACKET_PLAY_OUT_CHAT = getPacket("PlayOutChat").getConstructor(getNMS("IChatBaseComponent"), byte.class);
+
+        } catch (Exception e) {
+
+            System.err.println("Failed to load action bar packets, falling back to chat messages");
+            e.printStackTrace();
+
+        }
+
     }
 
     public static List<Field> getFieldsWithAnnotation(Class<? extends Object> clazz, Class<? extends Annotation> annotation) {
@@ -182,6 +198,54 @@ public class Reflection {
 
     }
 
+    /**
+     * Shows a message in the action bar of a player. If the action bar packet
+     * could not be loaded the message is sent in chat instead.
+     * 
+     * @param player
+     *            the player
+     * @param message
+     *            the message
+     */
+    public static void sendActionBar(Player player, String message) {
+
+        Object packet = createChatPacket(message, (byte) 2);
+        if (packet == null) {
+            player.sendMessage(message);
+            return;
+        }
+
+        sendPacket(packet, player);
+
+    }
+
+    /**
+     * Builds a chat packet. The same packet can be sent to any number of
+     * players with {@link Reflection#sendPacket(Object, Player...)}, so a
+     * message sent to many players only has to be built once.
+     * 
+     * @param message
+     *            the message, with color codes already translated
+     * @param position
+     *            where to show it, 0 for chat or 2 for the action bar
+     * @return The packet, or {@code null} if the chat packet could not be
+     *         loaded
+     */
+    public static Object createChatPacket(String message, byte position) {
+
+        if (PACKET_PLAY_OUT_CHAT == null) {
+            return null;
+        }
+
+        try {
+            return PACKET_PLAY_OUT_CHAT.newInstance(CHAT_COMPONENT_TEXT.newInstance(message), position);
+        } catch (ReflectiveOperationException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+    }
+
     public static boolean hasInterface(Object o, Class<?> interfacee) {
 
         return hasInterface(o.getClass(), interfacee);
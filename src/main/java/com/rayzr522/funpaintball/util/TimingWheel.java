@@ -0,0 +1,220 @@
+package com.rayzr522.funpaintball.util;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * A hashed timing wheel for running delayed and repeating tasks on the main
+ * thread. The whole wheel is driven by a single repeating Bukkit task, so
+ * scheduling something is just a linked list insert instead of a new Bukkit
+ * task.<br>
+ * <br>
+ * Tasks can be grouped into a {@link Scope}, which can cancel all of its tasks
+ * at once in constant time. Cancelled and finished tasks are dropped from the
+ * wheel the next time their slot comes around.
+ * 
+ * @author Rayzr
+ * 
+ * @see TimingWheel#later(Scope, Runnable, long)
+ * @see TimingWheel#every(Scope, Runnable, long, long)
+ * 
+ */
+public class TimingWheel {
+
+    /**
+     * A group of tasks that can be cancelled together
+     */
+    public static class Scope {
+
+        private int generation;
+
+        /**
+         * Cancels every task that was scheduled in this scope so far. Tasks
+         * scheduled afterwards are not affected.
+         */
+        public void cancelAll() {
+            generation++;
+        }
+
+    }
+
+    /**
+     * A handle to a scheduled task
+     */
+    public static class Task {
+
+        private final Runnable runnable;
+        private final Scope    scope;
+        private final int      generation;
+        private final long     period;
+
+        private long           deadline;
+        private boolean        cancelled;
+        private Task           next;
+
+        private Task(Runnable runnable, Scope scope, long deadline, long period) {
+            this.runnable = runnable;
+            this.scope = scope;
+            this.generation = scope == null ? 0 : scope.generation;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        /**
+         * Cancels this task. Does nothing if it already ran.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return Whether or not this task will still run
+         */
+        public boolean isActive() {
+            return !cancelled && (scope == null || scope.generation == generation);
+        }
+
+    }
+
+    private final JavaPlugin plugin;
+    private final Task[]     slots;
+    private final int        mask;
+
+    private long             tick;
+    private BukkitRunnable   driver;
+
+    /**
+     * @param plugin
+     *            the plugin to run the driving task for
+     * @param slots
+     *            the number of slots in the wheel. This is rounded up to a
+     *            power of two.
+     */
+    public TimingWheel(JavaPlugin plugin, int slots) {
+        this.plugin = plugin;
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.slots = new Task[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Starts the repeating Bukkit task which drives this wheel
+     */
+    public void start() {
+
+        if (driver != null) {
+            return;
+        }
+
+        driver = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        };
+        driver.runTaskTimer(plugin, 1L, 1L);
+
+    }
+
+    /**
+     * Stops the driving task. Pending tasks will not run until
+     * {@link TimingWheel#start()} is called again.
+     */
+    public void stop() {
+
+        if (driver == null) {
+            return;
+        }
+
+        driver.cancel();
+        driver = null;
+
+    }
+
+    /**
+     * @return The number of ticks this wheel has run for
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Runs a task once after a delay
+     * 
+     * @param scope
+     *            the scope of the task, or {@code null}
+     * @param runnable
+     *            the task
+     * @param delay
+     *            the delay in ticks. Anything less than 1 runs on the next
+     *            tick.
+     * @return A handle to the task
+     */
+    public Task later(Scope scope, Runnable runnable, long delay) {
+        return schedule(new Task(runnable, scope, tick + Math.max(1, delay), 0));
+    }
+
+    /**
+     * Runs a task repeatedly until it is cancelled
+     * 
+     * @param scope
+     *            the scope of the task, or {@code null}
+     * @param runnable
+     *            the task
+     * @param delay
+     *            the delay in ticks before the first run
+     * @param period
+     *            the number of ticks between runs
+     * @return A handle to the task
+     */
+    public Task every(Scope scope, Runnable runnable, long delay, long period) {
+        return schedule(new Task(runnable, scope, tick + Math.max(1, delay), Math.max(1, period)));
+    }
+
+    private Task schedule(Task task) {
+        int index = (int) (task.deadline & mask);
+        task.next = slots[index];
+        slots[index] = task;
+        return task;
+    }
+
+    private void tick() {
+
+        tick++;
+
+        int index = (int) (tick & mask);
+
+        // Detach the slot, so tasks scheduled while running don't get visited
+        Task task = slots[index];
+        slots[index] = null;
+
+        while (task != null) {
+
+            Task next = task.next;
+            task.next = null;
+
+            if (!task.isActive()) {
+                // Drop it
+            } else if (task.deadline > tick) {
+                // Not due for another lap of the wheel
+                schedule(task);
+            } else {
+                try {
+                    task.runnable.run();
+                } catch (Exception e) {
+                    System.err.println("A scheduled task threw an exception:");
+                    e.printStackTrace();
+                }
+                if (task.period > 0 && task.isActive()) {
+                    task.deadline = tick + task.period;
+                    schedule(task);
+                }
+            }
+
+            task = next;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.rayzr522.funpaintball.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A queue for work that doesn't have to happen right away, like saving files
+ * or updating signs. Jobs run on the main thread, but never for more than a
+ * fixed number of nanoseconds per tick, and whatever doesn't fit is deferred
+ * to the next tick. When the server is lagging the budget is halved and goes
+ * to {@link WorkQueue#HIGH} jobs, but every other priority still runs one job
+ * per tick so that nothing waits forever.
+ * 
+ * @author Rayzr
+ * 
+ * @see WorkQueue#submit(int, Runnable)
+ * 
+ */
+public class WorkQueue {
+
+    /**
+     * Work that should run as soon as there is time for it
+     */
+    public static final int   HIGH       = 0;
+    /**
+     * Normal work
+     */
+    public static final int   NORMAL     = 1;
+    /**
+     * Work that may wait until the server isn't busy
+     */
+    public static final int   LOW        = 2;
+
+    /**
+     * The length of a tick when the server isn't lagging, in nanoseconds
+     */
+    private static final long TICK_NANOS = 50_000_000L;
+
+    private TimingWheel       scheduler;
+    private long              budget;
+    private int               limit;
+
+    @SuppressWarnings("unchecked")
+    private Deque<Runnable>[] queues     = new Deque[] { new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>() };
+    private TimingWheel.Task  task;
+    private long              lastTick;
+
+    private long              executed;
+    private long              deferred;
+    private long              dropped;
+
+    /**
+     * @param scheduler
+     *            the scheduler to run the queue on
+     * @param budget
+     *            the maximum time spent on jobs each tick, in nanoseconds
+     * @param limit
+     *            the maximum number of waiting jobs per priority. Once full,
+     *            new {@link WorkQueue#NORMAL} and {@link WorkQueue#LOW} jobs
+     *            are dropped.
+     */
+    public WorkQueue(TimingWheel scheduler, long budget, int limit) {
+        this.scheduler = scheduler;
+        this.budget = budget;
+        this.limit = limit;
+    }
+
+    /**
+     * Queues a job
+     * 
+     * @param priority
+     *            one of {@link WorkQueue#HIGH}, {@link WorkQueue#NORMAL} or
+     *            {@link WorkQueue#LOW}
+     * @param job
+     *            the job
+     * @return Whether or not the job was queued. Will return false if the
+     *         queue for that priority was full.
+     */
+    public boolean submit(int priority, Runnable job) {
+
+        Deque<Runnable> queue = queues[priority];
+        if (priority != HIGH && queue.size() >= limit) {
+            dropped++;
+            return false;
+        }
+
+        queue.add(job);
+
+        if (task == null) {
+            lastTick = 0;
+            task = scheduler.every(null, this::tick, 1L, 1L);
+        }
+        return true;
+
+    }
+
+    /**
+     * Runs every waiting job right away, ignoring the budget. Used when the
+     * plugin is being disabled.
+     */
+    public void flush() {
+        for (Deque<Runnable> queue : queues) {
+            while (!queue.isEmpty()) {
+                run(queue.poll());
+            }
+        }
+    }
+
+    private void tick() {
+
+        long start = System.nanoTime();
+        boolean lagging = lastTick != 0 && start - lastTick > TICK_NANOS + TICK_NANOS / 10;
+        lastTick = start;
+
+        long deadline = start + (lagging ? budget / 2 : budget);
+
+        for (int priority = HIGH; priority <= LOW; priority++) {
+            Deque<Runnable> queue = queues[priority];
+            if (lagging && priority != HIGH) {
+                // The minimum slice, so lower priorities still move
+                if (!queue.isEmpty()) {
+                    run(queue.poll());
+                }
+                continue;
+            }
+            while (!queue.isEmpty() && System.nanoTime() < deadline) {
+                run(queue.poll());
+            }
+        }
+
+        int waiting = 0;
+        for (Deque<Runnable> queue : queues) {
+            waiting += queue.size();
+        }
+        deferred += waiting;
+
+        if (waiting == 0) {
+            task.cancel();
+            task = null;
+        }
+
+    }
+
+    private void run(Runnable job) {
+        try {
+            job.run();
+        } catch (Exception e) {
+            System.err.println("A queued job threw an exception:");
+            e.printStackTrace();
+        }
+        executed++;
+    }
+
+    /**
+     * @return The number of jobs that have been run
+     */
+    public long getExecuted() {
+        return executed;
+    }
+
+    /**
+     * @return The number of ticks jobs have spent waiting, added up over all
+     *         jobs. A job that waits for three ticks counts three times.
+     */
+    public long getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * @return The number of jobs that were dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return The number of jobs waiting to run
+     */
+    public int size() {
+        return queues[HIGH].size() + queues[NORMAL].size() + queues[LOW].size();
+    }
+
+}